@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.w3c.dom.Node;
+
+import org.apache.cxf.maven.invoke.plugin.CustomComponentRegistrator.ConfigurationToNodeConverter;
+import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluator;
+import org.codehaus.plexus.configuration.PlexusConfiguration;
+import org.codehaus.plexus.configuration.xml.XmlPlexusConfiguration;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of deeply nested request configurations to XML nodes by {@link ConfigurationToNodeConverter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigurationToNodeConverterBenchmark {
+
+    /** Evaluator that leaves the configuration as is, there are no expressions in it */
+    private static final ExpressionEvaluator VERBATIM = new ExpressionEvaluator() {
+        @Override
+        public File alignToBaseDirectory(final File file) {
+            return file;
+        }
+
+        @Override
+        public Object evaluate(final String expression) {
+            return expression;
+        }
+    };
+
+    /** Number of nested levels, each with a few leaf elements */
+    @Param({"1", "10", "100"})
+    int depth;
+
+    private PlexusConfiguration configuration;
+
+    private static Xpp3Dom level(final int level, final int depth) {
+        final Xpp3Dom element = new Xpp3Dom("level" + level);
+        element.setAttribute("xmlns", Payloads.NAMESPACE);
+        element.setAttribute("index", String.valueOf(level));
+
+        for (int i = 0; i < 3; i++) {
+            final Xpp3Dom leaf = new Xpp3Dom("value" + i);
+            leaf.setValue("Value " + i + " of level " + level);
+            element.addChild(leaf);
+        }
+
+        if (level < depth) {
+            element.addChild(level(level + 1, depth));
+        }
+
+        return element;
+    }
+
+    @Benchmark
+    public String asString() {
+        return ConfigurationToNodeConverter.asString(configuration);
+    }
+
+    @Benchmark
+    public Node fromConfiguration() throws ComponentConfigurationException {
+        return ConfigurationToNodeConverter.fromConfiguration(configuration, VERBATIM);
+    }
+
+    @Setup
+    public void setup() {
+        final Xpp3Dom request = new Xpp3Dom("request");
+        request.addChild(level(1, depth));
+
+        configuration = new XmlPlexusConfiguration(request).getChild(0);
+    }
+}
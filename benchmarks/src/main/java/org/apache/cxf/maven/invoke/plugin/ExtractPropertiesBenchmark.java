@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.w3c.dom.Document;
+
+import org.xml.sax.SAXException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation of many property XPath expressions over large responses, as done by
+ * {@link InvokeSoap#extractProperties(Document)} in a single traversal, compared with evaluating each expression
+ * using XPath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractPropertiesBenchmark {
+
+    @Param({"1", "10", "50"})
+    int expressions;
+
+    @Param({"10", "1000", "100000"})
+    int items;
+
+    private final InvokeSoap invokeSoap = new InvokeSoap();
+
+    private Document response;
+
+    @Benchmark
+    public Map<String, String> evaluateProperties() {
+        return invokeSoap.evaluateProperties(response);
+    }
+
+    @Benchmark
+    public Map<String, String> evaluatePropertiesXPath() throws XPathExpressionException {
+        final Map<String, String> values = new HashMap<>();
+        for (final Map.Entry<String, String> property : invokeSoap.properties.entrySet()) {
+            values.put(property.getKey(),
+                    (String) invokeSoap.xpathCache.evaluate(property.getValue(), response, XPathConstants.STRING));
+        }
+
+        return values;
+    }
+
+    @Setup
+    public void setup() throws SAXException, IOException {
+        response = XmlUtil.parse(Payloads.response(items)).getOwnerDocument();
+
+        for (int i = 0; i < expressions; i++) {
+            // spread the items looked up over the whole response
+            final long item = ((long) i * items) / expressions;
+            invokeSoap.properties.put("property" + i,
+                    "//*[local-name() = 'item'][@id = '" + item + "']/*[local-name() = 'value']");
+        }
+
+        invokeSoap.evaluator = new ResponseEvaluator(invokeSoap.properties.values(), invokeSoap.xpathCache);
+    }
+}
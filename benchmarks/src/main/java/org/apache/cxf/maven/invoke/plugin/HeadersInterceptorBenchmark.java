@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.w3c.dom.Node;
+
+import org.xml.sax.SAXException;
+
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.headers.Header;
+import org.apache.cxf.message.MessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Addition of configured SOAP headers to outgoing messages by {@link HeadersInterceptor}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeadersInterceptorBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int items;
+
+    private HeadersInterceptor interceptor;
+
+    private SoapMessage message;
+
+    @Benchmark
+    public List<Header> handleMessage() {
+        interceptor.handleMessage(message);
+
+        return message.getHeaders();
+    }
+
+    /**
+     * Each invocation needs a fresh message without the headers added by the previous one.
+     */
+    @Setup(Level.Invocation)
+    public void message() {
+        message = new SoapMessage(new MessageImpl());
+    }
+
+    @Setup
+    public void setup() throws SAXException, IOException {
+        final Node[] headers = {XmlUtil.parse(Payloads.response(items)),
+            XmlUtil.parse("<b:Security xmlns:b=\"" + Payloads.NAMESPACE + "\"><b:token>abc</b:token></b:Security>")};
+
+        interceptor = new HeadersInterceptor(headers);
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import org.xml.sax.SAXException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization done around each invocation of the service in {@link InvokeSoap#invokeService}: storing the request
+ * DOM to file, and reading the response source to DOM document, or its projection, while storing it to file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InvokeSoapBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int items;
+
+    private File executionDir;
+
+    private final InvokeSoap invokeSoap = new InvokeSoap();
+
+    private Node request;
+
+    private Node response;
+
+    private final InvokeSoap streaming = new InvokeSoap();
+
+    @Setup
+    public void setup() throws SAXException, IOException {
+        executionDir = Files.createTempDirectory("invoke-soap-benchmark").toFile();
+        request = XmlUtil.parse(Payloads.response(items));
+        response = XmlUtil.parse(Payloads.response(items)).getOwnerDocument();
+        // not found, so the whole response is read
+        streaming.projection = new ResponseProjection(Collections.singletonList("//*[local-name() = 'status']"));
+    }
+
+    /**
+     * Request given in the POM serialized once and written to file.
+     */
+    @Benchmark
+    public Source storeRequest() throws MojoExecutionException {
+        return invokeSoap.storeRequest(executionDir, AbstractInvokeSoap.createRequest(request), "");
+    }
+
+    /**
+     * DOMSource to DOM document and to file in one pass.
+     */
+    @Benchmark
+    public Document storeResponse() throws MojoExecutionException {
+        return invokeSoap.storeResponse(executionDir, new DOMSource(response), "");
+    }
+
+    /**
+     * DOMSource to file, keeping only the projection needed for a property in streaming mode.
+     */
+    @Benchmark
+    public Document storeResponseProjected() throws MojoExecutionException {
+        return streaming.storeResponse(executionDir, new DOMSource(response), "");
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (final File file : executionDir.listFiles()) {
+            file.delete();
+        }
+        executionDir.delete();
+    }
+}
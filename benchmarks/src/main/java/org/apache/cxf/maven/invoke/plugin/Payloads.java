@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+/**
+ * Generates XML payloads of a given size for the benchmarks. Payloads resemble typical SOAP responses, a list of
+ * items each with a few namespaced child elements and an attribute.
+ */
+final class Payloads {
+
+    static final String NAMESPACE = "urn:benchmark";
+
+    /**
+     * Utility class, no instantiation allowed.
+     */
+    private Payloads() {
+        // utility class
+    }
+
+    /**
+     * Creates a response with the given number of items.
+     *
+     * @param items
+     *            number of items
+     * @return serialized XML
+     */
+    static String response(final int items) {
+        final StringBuilder xml = new StringBuilder(items * 160);
+        xml.append("<b:GetItemsResponse xmlns:b=\"").append(NAMESPACE).append("\"><b:GetItemsResult>");
+
+        for (int i = 0; i < items; i++) {
+            xml.append("<b:item id=\"").append(i).append("\"><b:name>Item number ").append(i)
+                    .append("</b:name><b:value>").append(i * 31).append("</b:value><b:description>")
+                    .append("Description of the item &amp; its properties</b:description></b:item>");
+        }
+
+        xml.append("</b:GetItemsResult></b:GetItemsResponse>");
+
+        return xml.toString();
+    }
+}
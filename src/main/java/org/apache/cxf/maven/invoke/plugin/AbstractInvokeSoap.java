@@ -0,0 +1,407 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Service;
+import javax.xml.ws.handler.MessageContext;
+
+import org.w3c.dom.Node;
+
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.catalog.OASISCatalogManager;
+import org.apache.cxf.feature.LoggingFeature;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Base of the MOJOs invoking a SOAP service, holds the parameters describing the service and the request, and creates
+ * the {@link Dispatch} used to invoke it.
+ */
+public abstract class AbstractInvokeSoap extends AbstractMojo {
+
+    /**
+     * Files sent as MTOM attachments of the request, by Content-ID, streamed from disk. The request references them
+     * with {@code <xop:Include xmlns:xop="http://www.w3.org/2004/08/xop/include" href="cid:id"/>}, relative paths are
+     * resolved against the project directory. Implies {@link AbstractInvokeSoap#mtom}
+     */
+    @Parameter(property = "cxf.invoke.attachments")
+    final Map<String, String> attachments = new HashMap<>();
+
+    /** Counts the compressed and uncompressed bytes of all dispatches, if {@link AbstractInvokeSoap#gzip} */
+    GzipCompression compression;
+
+    /** URL for the service where the request will be sent */
+    @Parameter(property = "cxf.invoke.endpoint", required = false)
+    String endpoint;
+
+    /**
+     * If true requests larger than {@link AbstractInvokeSoap#gzipThreshold} are sent GZIP compressed and the service is
+     * told, with {@code Accept-Encoding: gzip}, that it may compress the responses
+     */
+    @Parameter(property = "cxf.invoke.gzip", defaultValue = "false")
+    boolean gzip;
+
+    /** Size in bytes from which requests are compressed, if {@link AbstractInvokeSoap#gzip} */
+    @Parameter(property = "cxf.invoke.gzip.threshold", defaultValue = "1024")
+    int gzipThreshold = 1024;
+
+    /** SOAP headers to add in the request */
+    @Parameter(property = "cxf.invoke.headers", required = false)
+    Node[] headers;
+
+    /** {@link MojoExecution} needed to get execution id */
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    MojoExecution mojoExecution;
+
+    /**
+     * If true MTOM is enabled, requests are sent with their {@link AbstractInvokeSoap#attachments} and attachments of
+     * the responses are stored as {@code attachment-<Content-ID>} files next to the response XML
+     */
+    @Parameter(property = "cxf.invoke.mtom", defaultValue = "false")
+    boolean mtom;
+
+    /** Target namespace of the SOAP service */
+    @Parameter(property = "cxf.invoke.namespace", required = true)
+    String namespace;
+
+    /** Operation to invoke on the service */
+    @Parameter(property = "cxf.invoke.operation", required = true)
+    String operation;
+
+    /** Port name of the SOAP service */
+    @Parameter(property = "cxf.invoke.port", required = false)
+    String portName;
+
+    /** Needed to set any extracted properties */
+    @Parameter(readonly = true, defaultValue = "${project}")
+    MavenProject project;
+
+    /**
+     * SOAP request, Maven parameter conversion forces us to use array even if only has one element, all elements are
+     * sent only in {@link InvokeSoap#batch} mode. Required unless {@link AbstractInvokeSoap#requestFile} is given
+     */
+    @Parameter(property = "cxf.invoke.request", required = false)
+    Node[] request;
+
+    /**
+     * File with the SOAP request payload, sent as is instead of {@link AbstractInvokeSoap#request}. The file is
+     * streamed each time the request is sent, so that it is never parsed or held in memory by the plugin
+     */
+    @Parameter(property = "cxf.invoke.request.file", required = false)
+    File requestFile;
+
+    /** Path in which to store SOAP request and response XMLs */
+    @Parameter(property = "cxf.invoke.request.path", required = true, defaultValue = "${project.build.directory}")
+    File requestPath;
+
+    /** Cache of {@link Service} objects shared by all executions in the Maven session */
+    @Component
+    ServiceCache serviceCache;
+
+    /** Name of the SOAP service to invoke */
+    @Parameter(property = "cxf.invoke.service", required = true)
+    String serviceName;
+
+    /** Current Maven session, used to scope the {@link AbstractInvokeSoap#serviceCache} */
+    @Parameter(defaultValue = "${session}", readonly = true)
+    MavenSession session;
+
+    /**
+     * HTTP transport configuration: {@code connectionTimeout} and {@code receiveTimeout} in milliseconds,
+     * {@code allowChunking} and {@code chunkingThreshold}, {@code keepAlive}, {@code useAsyncTransport} and the
+     * {@code maxConnections} and {@code maxConnectionsPerHost} pool sizes of the asynchronous transport
+     */
+    @Parameter
+    Transport transport;
+
+    /** URL for the WSDL document of the SOAP service */
+    @Parameter(property = "cxf.invoke.wsdl", required = true)
+    URI wsdl;
+
+    /** Directory in which remote WSDL and imported XML schema documents are cached between builds */
+    @Parameter(property = "cxf.invoke.wsdl.cache", defaultValue = "${settings.localRepository}/.cache/cxf-invoke")
+    File wsdlCache;
+
+    /** Cache remote WSDL documents and revalidate them with conditional requests, when offline use only the cache */
+    @Parameter(property = "cxf.invoke.wsdl.cache.enabled", defaultValue = "true")
+    boolean wsdlCacheEnabled;
+
+    /**
+     * Given a request, return its {@link Payload} serialized once, so that the same bytes are stored as the request XML
+     * and sent on every invocation, repetitions included, instead of the DOM being transformed each time.
+     *
+     * @param request
+     * @return the payload
+     */
+    static Payload.Bytes createRequest(final Node request) {
+        return new Payload.Bytes(XmlUtil.toString(request).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Closes the given {@link Dispatch} releasing its conduit, if the implementation supports it.
+     *
+     * @param dispatch
+     *            dispatch to close
+     */
+    void close(final Dispatch<Source> dispatch) {
+        if (dispatch instanceof Closeable) {
+            try {
+                ((Closeable) dispatch).close();
+            } catch (final IOException e) {
+                getLog().debug("Unable to close dispatch", e);
+            }
+        }
+    }
+
+    /**
+     * Creates the {@link Dispatch} used for all invocations within this execution, so that the underlying conduit and
+     * its connections are reused when the request is repeated. The dispatch is configured with the operation to invoke,
+     * and the {@link AbstractInvokeSoap#endpoint}, {@link AbstractInvokeSoap#headers} and
+     * {@link AbstractInvokeSoap#transport}, if given. With
+     * {@link AbstractInvokeSoap#gzip} the {@link AbstractInvokeSoap#compression} is applied to it, and with
+     * {@link AbstractInvokeSoap#mtom} the {@link AbstractInvokeSoap#attachments}.
+     *
+     * @return configured dispatch
+     * @throws MojoExecutionException
+     *             if the service cannot be created, the port cannot be determined, the transport cannot be
+     *             configured or an attachment does not exist
+     */
+    Dispatch<Source> createDispatch() throws MojoExecutionException {
+        final Service service = service();
+
+        final QName port = determinePort(service);
+
+        final Dispatch<Source> dispatch = service.createDispatch(port, Source.class, Service.Mode.PAYLOAD);
+
+        final Map<String, Object> requestContext = dispatch.getRequestContext();
+        requestContext.put(MessageContext.WSDL_OPERATION, new QName(namespace, operation));
+
+        if (endpoint != null) {
+            requestContext.put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, endpoint);
+        }
+
+        try {
+            if ((headers != null) && (headers.length != 0)) {
+                new HeadersInterceptor(headers).apply(dispatch);
+            }
+
+            if (transport != null) {
+                transport.apply(dispatch);
+            }
+
+            if (gzip) {
+                if (compression == null) {
+                    compression = new GzipCompression(gzipThreshold);
+                }
+                compression.apply(dispatch);
+            }
+
+            if (mtomEnabled()) {
+                new Attachments(attachmentFiles()).apply(dispatch);
+            }
+        } catch (final IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+
+        return dispatch;
+    }
+
+    /**
+     * Resolves the {@link AbstractInvokeSoap#attachments} against the project directory.
+     *
+     * @return attachment files by Content-ID
+     */
+    Map<String, File> attachmentFiles() {
+        final File basedir = project != null ? project.getBasedir() : null;
+
+        final Map<String, File> files = new HashMap<>();
+        attachments.forEach((id, path) -> {
+            final File file = new File(path);
+            files.put(id, file.isAbsolute() || (basedir == null) ? file : new File(basedir, path));
+        });
+
+        return files;
+    }
+
+    /**
+     * Determines if MTOM is used, either explicitly with {@link AbstractInvokeSoap#mtom} or to send
+     * {@link AbstractInvokeSoap#attachments}.
+     *
+     * @return true if MTOM is enabled
+     */
+    boolean mtomEnabled() {
+        return mtom || !attachments.isEmpty();
+    }
+
+    /**
+     * Creates {@link Service} using the {@link AbstractInvokeSoap#wsdl},{@link AbstractInvokeSoap#namespace} and
+     * {@link AbstractInvokeSoap#serviceName}. If enabled, the WSDL is resolved through the persistent
+     * {@link AbstractInvokeSoap#wsdlCache}.
+     *
+     * @return created service
+     * @throws MojoExecutionException
+     *             if WSDL URL is malformed
+     */
+    Service createService() throws MojoExecutionException {
+        if (wsdlCacheEnabled) {
+            useWsdlCache();
+        }
+
+        final Service service;
+        try {
+            if (getLog().isDebugEnabled()) {
+                service = Service.create(wsdl.toURL(), new QName(namespace, serviceName), new LoggingFeature());
+            } else {
+                service = Service.create(wsdl.toURL(), new QName(namespace, serviceName));
+            }
+        } catch (final MalformedURLException e) {
+            throw new MojoExecutionException("Unable to convert `" + wsdl + "` to URL", e);
+        }
+
+        return service;
+    }
+
+    /**
+     * Returns the {@link Service} from the {@link AbstractInvokeSoap#serviceCache}, creating it via
+     * {@link AbstractInvokeSoap#createService()} only if no execution in this Maven session has created it already.
+     *
+     * @return cached or created service
+     * @throws MojoExecutionException
+     *             if the service could not be created
+     */
+    Service service() throws MojoExecutionException {
+        final ServiceCache.Key key = new ServiceCache.Key(wsdl, new QName(namespace, serviceName),
+                getLog().isDebugEnabled());
+
+        return serviceCache.get(key, this::createService);
+    }
+
+    /**
+     * Returns SOAP port of the service to use. If specific port is specified use that, otherwise use the one port
+     * defined in WSDL.
+     *
+     * @param service
+     *            SOAP service
+     * @return SOAP port to use
+     * @throws MojoExecutionException
+     *             if there are none or more than one ports in the service when specific port has not been defined
+     */
+    QName determinePort(final Service service) throws MojoExecutionException {
+        if (portName != null) {
+            return new QName(namespace, portName);
+        }
+
+        final Iterator<QName> ports = service.getPorts();
+
+        if (ports.hasNext()) {
+            final QName port = ports.next();
+
+            if (ports.hasNext()) {
+                throw new MojoExecutionException("Found more than one port type defined in specified WSDL `" + wsdl
+                        + "`, please specify which one to use with `portName` configuration option");
+            }
+            return port;
+        } else {
+            throw new MojoExecutionException(
+                    "Given WSDL `" + wsdl + "` does not specify any port types, please specify one to use with "
+                            + "`portName` configuration option");
+        }
+    }
+
+    /**
+     * Returns the payload of the request: the {@link AbstractInvokeSoap#requestFile} if given, otherwise the first
+     * element of {@link AbstractInvokeSoap#request}.
+     *
+     * @return request payload
+     * @throws MojoExecutionException
+     *             if neither is given or the request file does not exist
+     */
+    Payload requestPayload() throws MojoExecutionException {
+        if (requestFile != null) {
+            if (!requestFile.isFile()) {
+                throw new MojoExecutionException("Request file `" + requestFile + "` does not exist");
+            }
+
+            return new Payload.Streamed(requestFile);
+        }
+
+        if ((request == null) || (request.length == 0)) {
+            throw new MojoExecutionException("Either `request` or `requestFile` must be given");
+        }
+
+        return createRequest(request[0]);
+    }
+
+    /**
+     * Returns the directory in which request and response XMLs of this execution are stored, creating it if needed.
+     *
+     * @return execution directory
+     */
+    File executionDir() {
+        final File executionDir = new File(requestPath, mojoExecution.getExecutionId());
+        if (!executionDir.exists()) {
+            executionDir.mkdirs();
+        }
+
+        return executionDir;
+    }
+
+    /**
+     * Caches the {@link AbstractInvokeSoap#wsdl} and its imports in {@link AbstractInvokeSoap#wsdlCache} and registers
+     * the resulting XML catalog with CXF so that the documents are resolved from the cache. When Maven is offline the
+     * documents are not revalidated.
+     *
+     * @throws MojoExecutionException
+     *             if the WSDL cannot be cached or the catalog cannot be loaded
+     */
+    void useWsdlCache() throws MojoExecutionException {
+        final boolean offline = (session != null) && session.isOffline();
+
+        final URL catalog = new WsdlCache(wsdlCache, offline, getLog()).cache(wsdl);
+        if (catalog == null) {
+            return;
+        }
+
+        try {
+            OASISCatalogManager.getCatalogManager(BusFactory.getThreadDefaultBus()).loadCatalog(catalog);
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to load XML catalog `" + catalog + "`", e);
+        }
+    }
+}
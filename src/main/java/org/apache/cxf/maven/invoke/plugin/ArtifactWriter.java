@@ -0,0 +1,407 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes request and response XMLs, optionally gzip compressed and truncated to a maximum size. With a queue the files
+ * are written by a background thread, so the invoking threads do not wait for the disk, and only block when the queue
+ * is full. Failures to write are reported when the writer is closed, after all queued files have been written. Without
+ * a queue the files are written by the calling thread.
+ * <p>
+ * With an archive the files are not created individually but appended, by name, as entries of a single ZIP archive,
+ * deflated if compressing, that is created on the first entry and completed when the writer is closed. As entries
+ * cannot be replaced, a file written again under the same name is appended as a new entry with {@code ~N}, counting
+ * from 2, inserted before the extension, e.g. {@code response~2.xml}.
+ */
+final class ArtifactWriter implements Closeable {
+
+    /**
+     * File to write and its content, either in memory or spooled to a temporary file.
+     */
+    private static final class Artifact {
+
+        final byte[] content;
+
+        final File file;
+
+        final Path spool;
+
+        Artifact(final File file, final byte[] content) {
+            this(file, content, null);
+        }
+
+        Artifact(final File file, final byte[] content, final Path spool) {
+            this.file = file;
+            this.content = content;
+            this.spool = spool;
+        }
+    }
+
+    /**
+     * Discards everything written beyond the limit.
+     */
+    private static final class Truncating extends FilterOutputStream {
+
+        private long remaining;
+
+        Truncating(final OutputStream out, final long limit) {
+            super(out);
+            remaining = limit;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final int allowed = (int) Math.min(len, remaining);
+            if (allowed > 0) {
+                out.write(b, off, allowed);
+                remaining -= allowed;
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (remaining > 0) {
+                out.write(b);
+                remaining--;
+            }
+        }
+    }
+
+    /** Signals the background thread that there are no more artifacts to write */
+    private static final Artifact END = new Artifact(null, null);
+
+    /** ZIP archive the files are appended to, or {@code null} to write individual files */
+    private final File archive;
+
+    private final boolean compress;
+
+    /** First failure to write, reported on close */
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    /** Maximum number of bytes written to a file before compression, 0 for no limit */
+    private final long limit;
+
+    /** Number of entries written to the archive by name */
+    private final Map<String, Integer> names = new HashMap<>();
+
+    private final BlockingQueue<Artifact> queue;
+
+    private final Thread thread;
+
+    /** Open archive, created on the first entry */
+    private ZipOutputStream zip;
+
+    /**
+     * Creates a writer that writes files uncompressed in the calling thread.
+     */
+    ArtifactWriter() {
+        this(false, 0, null, 0, null);
+    }
+
+    /**
+     * Creates the writer.
+     *
+     * @param compress
+     *            if the files should be gzip compressed, {@code .gz} is appended to their names
+     * @param limit
+     *            maximum number of bytes of each file, before compression, the rest is discarded, 0 for no limit
+     * @param archive
+     *            ZIP archive to append the files to, or {@code null} to write individual files
+     * @param capacity
+     *            number of files that can wait to be written, if 0 files are written in the calling thread
+     * @param threadName
+     *            name of the background thread
+     */
+    ArtifactWriter(final boolean compress, final long limit, final File archive, final int capacity,
+            final String threadName) {
+        this.compress = compress;
+        this.limit = limit;
+        this.archive = archive;
+
+        if (capacity > 0) {
+            queue = new ArrayBlockingQueue<>(capacity);
+            thread = new Thread(this::writeQueued, threadName);
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            queue = null;
+            thread = null;
+        }
+    }
+
+    /**
+     * Waits for all queued files to be written, stops the background thread and completes the archive.
+     *
+     * @throws IOException
+     *             if any of the files could not be written, or if interrupted while waiting
+     */
+    @Override
+    public void close() throws IOException {
+        if (thread != null) {
+            try {
+                queue.put(END);
+                thread.join();
+            } catch (final InterruptedException e) {
+                thread.interrupt();
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException("Interrupted while writing request and response XMLs");
+            }
+        }
+
+        synchronized (this) {
+            if (zip != null) {
+                try {
+                    zip.close();
+                } catch (final IOException e) {
+                    fail(new IOException("Unable to write `" + archive + "`", e));
+                }
+                zip = null;
+            }
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private void fail(final IOException e) {
+        failure.compareAndSet(null, e);
+    }
+
+    /**
+     * Opens the given file for writing in the calling thread, for content that is written as it is produced. Content
+     * beyond the limit is discarded. With an archive the content is spooled to a temporary file next to the archive,
+     * so that it is never held in memory whole, and appended to the archive, in order with the other files, as if by
+     * {@link ArtifactWriter#write(File, byte[])} when the stream is closed.
+     *
+     * @param file
+     *            file to write, {@code .gz} is appended to its name if compressing
+     * @return output stream to the file
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    OutputStream open(final File file) throws IOException {
+        if (archive != null) {
+            final Path spool = Files.createTempFile(archive.getAbsoluteFile().getParentFile().toPath(),
+                    archive.getName(), ".tmp");
+            final OutputStream spooled = new FilterOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(spool))) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        try {
+                            super.close();
+                        } catch (final IOException e) {
+                            Files.deleteIfExists(spool);
+                            throw e;
+                        }
+                        put(new Artifact(file, null, spool));
+                    }
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    out.write(b, off, len);
+                }
+            };
+
+            return limit > 0 ? new Truncating(spooled, limit) : spooled;
+        }
+
+        final OutputStream output = Files.newOutputStream(target(file).toPath());
+        final OutputStream buffered = compress ? new GZIPOutputStream(output, 8192) : new BufferedOutputStream(output);
+
+        return limit > 0 ? new Truncating(buffered, limit) : buffered;
+    }
+
+    /**
+     * Name of the file actually written.
+     *
+     * @param file
+     *            requested file
+     * @return file with {@code .gz} appended if compressing, or the entry within the archive
+     */
+    File target(final File file) {
+        if (archive != null) {
+            return new File(archive, file.getName());
+        }
+
+        return compress ? new File(file.getPath() + ".gz") : file;
+    }
+
+    /**
+     * Writes the given content to the file, in the background if there is a queue, truncated to the limit. The content
+     * must not be modified afterwards.
+     *
+     * @param file
+     *            file to write, {@code .gz} is appended to its name if compressing
+     * @param content
+     *            content of the file
+     * @throws IOException
+     *             if written in the calling thread and the file cannot be written, or if interrupted while waiting
+     *             for space in the queue
+     */
+    void write(final File file, final byte[] content) throws IOException {
+        final byte[] truncated = (limit > 0) && (content.length > limit) ? Arrays.copyOf(content, (int) limit)
+                : content;
+
+        put(new Artifact(file, truncated));
+    }
+
+    /**
+     * Writes the artifact in the calling thread without a queue, otherwise queues it for the background thread.
+     */
+    private void put(final Artifact artifact) throws IOException {
+        if (queue == null) {
+            writeNow(artifact);
+            return;
+        }
+
+        try {
+            queue.put(artifact);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (artifact.spool != null) {
+                Files.deleteIfExists(artifact.spool);
+            }
+
+            throw new InterruptedIOException("Interrupted while queueing `" + artifact.file + "` to be written");
+        }
+    }
+
+    private synchronized void append(final String name, final byte[] content) throws IOException {
+        final CRC32 crc = new CRC32();
+        if (!compress) {
+            crc.update(content);
+        }
+
+        putNextEntry(name, content.length, crc.getValue());
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    /**
+     * Appends the content of the spool file to the archive. The checksum needed for uncompressed entries is computed
+     * before taking the lock.
+     */
+    private void append(final String name, final Path spool) throws IOException {
+        final CRC32 crc = new CRC32();
+        if (!compress) {
+            try (InputStream input = new CheckedInputStream(Files.newInputStream(spool), crc)) {
+                final byte[] buffer = new byte[8192];
+                while (input.read(buffer) >= 0) {
+                    // only computing the checksum
+                }
+            }
+        }
+
+        synchronized (this) {
+            putNextEntry(name, Files.size(spool), crc.getValue());
+            Files.copy(spool, zip);
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Creates the archive on the first entry and starts a new entry with a unique name. Must be called while holding
+     * the lock of the writer.
+     */
+    private void putNextEntry(final String name, final long size, final long crc) throws IOException {
+        if (zip == null) {
+            zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(archive.toPath())));
+        }
+
+        final int count = names.merge(name, 1, Integer::sum);
+        final int extension = name.lastIndexOf('.');
+        final String unique = count == 1 ? name
+                : extension < 0 ? name + "~" + count
+                        : name.substring(0, extension) + "~" + count + name.substring(extension);
+
+        final ZipEntry entry = new ZipEntry(unique);
+        if (!compress) {
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(size);
+            entry.setCrc(crc);
+        }
+
+        zip.putNextEntry(entry);
+    }
+
+    private void writeNow(final Artifact artifact) throws IOException {
+        if (artifact.spool != null) {
+            try {
+                append(artifact.file.getName(), artifact.spool);
+            } finally {
+                Files.deleteIfExists(artifact.spool);
+            }
+            return;
+        }
+
+        if (archive != null) {
+            append(artifact.file.getName(), artifact.content);
+            return;
+        }
+
+        final OutputStream output = Files.newOutputStream(target(artifact.file).toPath());
+        try (OutputStream stored = compress ? new GZIPOutputStream(output, 8192) : output) {
+            stored.write(artifact.content);
+        }
+    }
+
+    private void writeQueued() {
+        try {
+            Artifact artifact;
+            while ((artifact = queue.take()) != END) {
+                try {
+                    writeNow(artifact);
+                } catch (final IOException e) {
+                    fail(new IOException("Unable to write `" + target(artifact.file) + "`", e));
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
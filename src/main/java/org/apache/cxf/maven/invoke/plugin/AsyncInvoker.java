@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import javax.xml.transform.Source;
+import javax.xml.ws.Dispatch;
+
+/**
+ * Invokes a SOAP service asynchronously using {@link Dispatch#invokeAsync(Object, javax.xml.ws.AsyncHandler)}, so that
+ * many requests can be in flight over a small number of threads. At most {@code maxInFlight} requests are outstanding
+ * at any time, further invocations block until a response arrives, applying back-pressure to the caller.
+ */
+final class AsyncInvoker {
+
+    /** Request context property that makes CXF use the asynchronous (Apache HttpComponents) HTTP conduit */
+    static final String USE_ASYNC_HTTP_CONDUIT = "use.async.http.conduit";
+
+    private final Dispatch<Source> dispatch;
+
+    private final Semaphore inFlight;
+
+    /**
+     * Creates invoker using the given dispatch.
+     *
+     * @param dispatch
+     *            dispatch to invoke, configured to use the asynchronous HTTP conduit
+     * @param maxInFlight
+     *            maximum number of outstanding requests
+     */
+    AsyncInvoker(final Dispatch<Source> dispatch, final int maxInFlight) {
+        this.dispatch = dispatch;
+        inFlight = new Semaphore(Math.max(1, maxInFlight));
+
+        dispatch.getRequestContext().put(USE_ASYNC_HTTP_CONDUIT, Boolean.TRUE);
+    }
+
+    /**
+     * Number of requests that can be sent before the limit on outstanding requests is reached.
+     *
+     * @return available permits
+     */
+    int available() {
+        return inFlight.availablePermits();
+    }
+
+    /**
+     * Sends the request, blocking while the maximum number of requests are in flight.
+     *
+     * @param request
+     *            SOAP request
+     * @return future completed with the SOAP response
+     * @throws InterruptedException
+     *             if interrupted while waiting for an outstanding request to complete
+     */
+    CompletableFuture<Source> invoke(final Source request) throws InterruptedException {
+        return invoke(request, null);
+    }
+
+    /**
+     * Sends the request, blocking while the maximum number of requests are in flight, and passes the response context
+     * to the given consumer before completing with the response. The future fails if the consumer throws.
+     *
+     * @param request
+     *            SOAP request
+     * @param responseContext
+     *            consumer of the response context, or {@code null}
+     * @return future completed with the SOAP response
+     * @throws InterruptedException
+     *             if interrupted while waiting for an outstanding request to complete
+     */
+    CompletableFuture<Source> invoke(final Source request, final Consumer<Map<String, Object>> responseContext)
+            throws InterruptedException {
+        inFlight.acquire();
+
+        final CompletableFuture<Source> response = new CompletableFuture<>();
+        try {
+            dispatch.invokeAsync(request, result -> {
+                inFlight.release();
+                try {
+                    final Source source = result.get();
+                    if (responseContext != null) {
+                        responseContext.accept(result.getContext());
+                    }
+                    response.complete(source);
+                } catch (final ExecutionException e) {
+                    response.completeExceptionally(e.getCause());
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    response.completeExceptionally(e);
+                } catch (final RuntimeException e) {
+                    response.completeExceptionally(e);
+                }
+            });
+        } catch (final RuntimeException e) {
+            inFlight.release();
+            response.completeExceptionally(e);
+        }
+
+        return response;
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.activation.DataHandler;
+import javax.activation.FileDataSource;
+import javax.xml.transform.Source;
+import javax.xml.ws.Binding;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.handler.MessageContext;
+import javax.xml.ws.soap.SOAPBinding;
+
+import org.apache.cxf.message.Attachment;
+import org.apache.cxf.message.Message;
+
+/**
+ * Sends files as MTOM attachments of the request and stores the attachments of the response as files, so that large
+ * binary content is streamed instead of being inlined as base64 in the XML.
+ * <p>
+ * The request references an attachment by its Content-ID with
+ * {@code <xop:Include xmlns:xop="http://www.w3.org/2004/08/xop/include" href="cid:id"/>}. The files are read from disk
+ * as each request is written to the connection, and CXF keeps the attachments of the response in memory only up to its
+ * threshold, larger ones are cached in temporary files until they are copied to their files.
+ */
+final class Attachments {
+
+    /** Characters of a Content-ID that are replaced in the name of the file the attachment is stored in */
+    private static final Pattern UNSAFE = Pattern.compile("[^A-Za-z0-9._@-]");
+
+    /** Files to attach to every request by their Content-ID */
+    private final Map<String, File> files;
+
+    /**
+     * Creates attachments of the given files.
+     *
+     * @param files
+     *            files to attach to every request by their Content-ID
+     */
+    Attachments(final Map<String, File> files) {
+        this.files = files;
+    }
+
+    /**
+     * Returns the attachments of the response by Content-ID. The context of a response to an asynchronous invocation is
+     * that of the CXF message, in which they are not mapped to {@link MessageContext#INBOUND_MESSAGE_ATTACHMENTS}.
+     *
+     * @param responseContext
+     *            response context of the invocation
+     * @return attachments, empty if none
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, DataHandler> attachments(final Map<String, Object> responseContext) {
+        final Map<String, DataHandler> inbound = (Map<String, DataHandler>) responseContext
+                .get(MessageContext.INBOUND_MESSAGE_ATTACHMENTS);
+        if (inbound != null) {
+            return inbound;
+        }
+
+        final Collection<Attachment> attachments = (Collection<Attachment>) responseContext.get(Message.ATTACHMENTS);
+        if (attachments == null) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, DataHandler> byId = new HashMap<>();
+        for (final Attachment attachment : attachments) {
+            byId.put(attachment.getId(), attachment.getDataHandler());
+        }
+
+        return byId;
+    }
+
+    /**
+     * Stores each attachment of the response as {@code attachment<suffix>-<Content-ID>} in the given directory,
+     * replacing any previous file of the same name.
+     *
+     * @param responseContext
+     *            response context of the invocation
+     * @param directory
+     *            directory to store the attachments in
+     * @param suffix
+     *            suffix of the stored attachments
+     * @return stored files
+     * @throws IOException
+     *             if unable to read an attachment or to write its file
+     */
+    static List<File> store(final Map<String, Object> responseContext, final File directory, final String suffix)
+            throws IOException {
+        final List<File> stored = new ArrayList<>();
+        for (final Map.Entry<String, DataHandler> attachment : attachments(responseContext).entrySet()) {
+            final File file = new File(directory,
+                    "attachment" + suffix + "-" + UNSAFE.matcher(attachment.getKey()).replaceAll("_"));
+
+            try (InputStream content = attachment.getValue().getInputStream()) {
+                Files.copy(content, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            stored.add(file);
+        }
+
+        return stored;
+    }
+
+    /**
+     * Enables MTOM on the dispatch and attaches the files to its requests.
+     *
+     * @param dispatch
+     *            dispatch to configure
+     * @throws IllegalArgumentException
+     *             if the dispatch does not use SOAP binding or a file does not exist
+     */
+    void apply(final Dispatch<Source> dispatch) {
+        final Binding binding = dispatch.getBinding();
+        if (!(binding instanceof SOAPBinding)) {
+            throw new IllegalArgumentException("MTOM can be enabled only on services using SOAP binding");
+        }
+
+        ((SOAPBinding) binding).setMTOMEnabled(true);
+
+        if (files.isEmpty()) {
+            return;
+        }
+
+        final Map<String, DataHandler> attachments = new HashMap<>();
+        for (final Map.Entry<String, File> file : files.entrySet()) {
+            if (!file.getValue().isFile()) {
+                throw new IllegalArgumentException(
+                        "File `" + file.getValue() + "` of attachment `" + file.getKey() + "` does not exist");
+            }
+
+            attachments.put(file.getKey(), new DataHandler(new FileDataSource(file.getValue())));
+        }
+
+        dispatch.getRequestContext().put(MessageContext.OUTBOUND_MESSAGE_ATTACHMENTS, attachments);
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.transform.Source;
+import javax.xml.ws.Dispatch;
+
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.jaxws.DispatchImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.common.gzip.GZIPInInterceptor;
+import org.apache.cxf.transport.common.gzip.GZIPOutInterceptor;
+
+/**
+ * Compresses requests above a size threshold with GZIP and advertises {@code Accept-Encoding: gzip} so that the
+ * service can compress the responses, using the CXF {@link GZIPOutInterceptor} and {@link GZIPInInterceptor}.
+ * <p>
+ * The bytes before and after (de)compression, and the time spent (de)compressing, of all requests and responses of
+ * the dispatches it is applied to are counted by interceptors on either side of the GZIP ones. The time is measured as
+ * the time spent writing (reading) the uncompressed content less the time spent writing (reading) the compressed
+ * content, as the latter is done within the former.
+ */
+final class GzipCompression {
+
+    /**
+     * Counts the bytes and time of the reads of the content of the message.
+     */
+    private static final class CountingIn extends AbstractPhaseInterceptor<Message> {
+
+        private final LongAdder bytes;
+
+        private final LongAdder nanos;
+
+        CountingIn(final LongAdder bytes, final LongAdder nanos, final boolean compressed) {
+            super(compressed ? "gzip-compressed-in" : "gzip-uncompressed-in", Phase.RECEIVE);
+            this.bytes = bytes;
+            this.nanos = nanos;
+
+            if (compressed) {
+                addBefore(GZIPInInterceptor.class.getName());
+            } else {
+                addAfter(GZIPInInterceptor.class.getName());
+            }
+        }
+
+        @Override
+        public void handleMessage(final Message message) {
+            final InputStream input = message.getContent(InputStream.class);
+            if (input != null) {
+                message.setContent(InputStream.class, new CountingInputStream(input, bytes, nanos));
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final LongAdder bytes;
+
+        private final LongAdder nanos;
+
+        CountingInputStream(final InputStream in, final LongAdder bytes, final LongAdder nanos) {
+            super(in);
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final long start = System.nanoTime();
+            try {
+                final int read = in.read();
+                if (read >= 0) {
+                    bytes.increment();
+                }
+
+                return read;
+            } finally {
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final long start = System.nanoTime();
+            try {
+                final int read = in.read(b, off, len);
+                if (read > 0) {
+                    bytes.add(read);
+                }
+
+                return read;
+            } finally {
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes and time of the writes of the content of the message.
+     */
+    private static final class CountingOut extends AbstractPhaseInterceptor<Message> {
+
+        private final LongAdder bytes;
+
+        private final LongAdder nanos;
+
+        CountingOut(final LongAdder bytes, final LongAdder nanos, final boolean compressed) {
+            super(compressed ? "gzip-compressed-out" : "gzip-uncompressed-out", Phase.PREPARE_SEND);
+            this.bytes = bytes;
+            this.nanos = nanos;
+
+            if (compressed) {
+                addAfter(MessageSenderInterceptor.class.getName());
+                addBefore(GZIPOutInterceptor.class.getName());
+            } else {
+                addAfter(GZIPOutInterceptor.class.getName());
+            }
+        }
+
+        @Override
+        public void handleMessage(final Message message) {
+            final OutputStream output = message.getContent(OutputStream.class);
+            if (output != null) {
+                message.setContent(OutputStream.class, new CountingOutputStream(output, bytes, nanos));
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private final LongAdder bytes;
+
+        private final LongAdder nanos;
+
+        CountingOutputStream(final OutputStream out, final LongAdder bytes, final LongAdder nanos) {
+            super(out);
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public void close() throws IOException {
+            final long start = System.nanoTime();
+            try {
+                out.close();
+            } finally {
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            final long start = System.nanoTime();
+            try {
+                out.flush();
+            } finally {
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final long start = System.nanoTime();
+            try {
+                out.write(b, off, len);
+                bytes.add(len);
+            } finally {
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            final long start = System.nanoTime();
+            try {
+                out.write(b);
+                bytes.increment();
+            } finally {
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private final LongAdder receivedBytes = new LongAdder();
+
+    private final LongAdder receivedNanos = new LongAdder();
+
+    private final LongAdder requestBytes = new LongAdder();
+
+    private final LongAdder requestNanos = new LongAdder();
+
+    private final LongAdder responseBytes = new LongAdder();
+
+    private final LongAdder responseNanos = new LongAdder();
+
+    private final LongAdder sentBytes = new LongAdder();
+
+    private final LongAdder sentNanos = new LongAdder();
+
+    private final int threshold;
+
+    /**
+     * Creates the compression.
+     *
+     * @param threshold
+     *            size in bytes from which requests are compressed
+     */
+    GzipCompression(final int threshold) {
+        this.threshold = threshold;
+    }
+
+    private static double percent(final long part, final long whole) {
+        return whole == 0 ? 100.0 : (100.0 * part) / whole;
+    }
+
+    /**
+     * Adds the GZIP and counting interceptors to the client of the dispatch.
+     *
+     * @param dispatch
+     *            dispatch created by CXF
+     * @throws IllegalArgumentException
+     *             if the dispatch is not a CXF dispatch
+     */
+    void apply(final Dispatch<Source> dispatch) {
+        if (!(dispatch instanceof DispatchImpl)) {
+            throw new IllegalArgumentException("GZIP compression can be enabled only on CXF dispatch");
+        }
+
+        final Client client = ((DispatchImpl<?>) dispatch).getClient();
+
+        final GZIPOutInterceptor gzipOut = new GZIPOutInterceptor(threshold);
+        // without force requests are compressed only once the service has sent a compressed response
+        gzipOut.setForce(true);
+
+        client.getOutInterceptors().add(new CountingOut(sentBytes, sentNanos, true));
+        client.getOutInterceptors().add(gzipOut);
+        client.getOutInterceptors().add(new CountingOut(requestBytes, requestNanos, false));
+
+        client.getInInterceptors().add(new CountingIn(receivedBytes, receivedNanos, true));
+        client.getInInterceptors().add(new GZIPInInterceptor());
+        client.getInInterceptors().add(new CountingIn(responseBytes, responseNanos, false));
+    }
+
+    /**
+     * Size of the responses as received, compressed if the service compressed them.
+     *
+     * @return bytes
+     */
+    long receivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    /**
+     * Uncompressed size of the requests.
+     *
+     * @return bytes
+     */
+    long requestBytes() {
+        return requestBytes.sum();
+    }
+
+    /**
+     * Uncompressed size of the responses.
+     *
+     * @return bytes
+     */
+    long responseBytes() {
+        return responseBytes.sum();
+    }
+
+    /**
+     * Size of the requests as sent, compressed if above the threshold.
+     *
+     * @return bytes
+     */
+    long sentBytes() {
+        return sentBytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        final long compressing = Math.max(0, requestNanos.sum() - sentNanos.sum());
+        final long decompressing = Math.max(0, responseNanos.sum() - receivedNanos.sum());
+
+        return String.format(Locale.ROOT,
+                "GZIP: requests of %d bytes sent as %d bytes (%.1f%%), compressed in %d ms; "
+                        + "responses of %d bytes received as %d bytes (%.1f%%), decompressed in %d ms",
+                requestBytes(), sentBytes(), percent(sentBytes(), requestBytes()),
+                TimeUnit.NANOSECONDS.toMillis(compressing), responseBytes(), receivedBytes(),
+                percent(receivedBytes(), responseBytes()), TimeUnit.NANOSECONDS.toMillis(decompressing));
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.ws.Dispatch;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import org.xml.sax.SAXException;
+
+import org.apache.cxf.binding.soap.SoapHeader;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.jaxws.DispatchImpl;
+import org.apache.cxf.phase.Phase;
+
+/**
+ * Adds the given SOAP headers to every outgoing SOAP message as CXF {@link SoapHeader}s, which are written as the
+ * envelope is streamed. Unlike a JAX-WS {@code SOAPHandler} this does not convert the message to SAAJ, so the body is
+ * never built as a DOM just to append the headers.
+ * <p>
+ * The headers are serialized once, on creation, and parsed once by each thread that sends messages, as DOM is not
+ * safe to use from many threads and messages are sent concurrently over the same dispatch in batch and async mode.
+ * Each message gets its own deep copy of the elements of the sending thread.
+ */
+final class HeadersInterceptor extends AbstractSoapInterceptor {
+
+    /**
+     * Serialized header and its name.
+     */
+    private static final class Header {
+
+        final QName name;
+
+        final String xml;
+
+        Header(final QName name, final String xml) {
+            this.name = name;
+            this.xml = xml;
+        }
+    }
+
+    /** Headers to add */
+    private final List<Header> headers;
+
+    /** Elements of the headers, parsed by each thread and copied for every message */
+    private final ThreadLocal<List<Element>> parsed = ThreadLocal.withInitial(this::parse);
+
+    /**
+     * Pass in the headers to be added on the SOAP messages.
+     *
+     * @param headers
+     *            headers to be added
+     * @throws IllegalArgumentException
+     *             if a header is not an element
+     */
+    HeadersInterceptor(final Node[] headers) {
+        super(Phase.PRE_PROTOCOL);
+
+        final List<Header> serialized = new ArrayList<>(headers.length);
+        for (final Node header : headers) {
+            if (!(header instanceof Element)) {
+                throw new IllegalArgumentException("SOAP header `" + XmlUtil.toString(header) + "` is not an element");
+            }
+
+            final String name = header.getLocalName() != null ? header.getLocalName() : header.getNodeName();
+            serialized.add(new Header(new QName(header.getNamespaceURI(), name), XmlUtil.toString(header)));
+        }
+
+        this.headers = Collections.unmodifiableList(serialized);
+    }
+
+    /**
+     * Adds the interceptor to the client of the dispatch.
+     *
+     * @param dispatch
+     *            dispatch created by CXF
+     * @throws IllegalArgumentException
+     *             if the dispatch is not a CXF dispatch
+     */
+    void apply(final Dispatch<Source> dispatch) {
+        if (!(dispatch instanceof DispatchImpl)) {
+            throw new IllegalArgumentException("SOAP headers can be added only on CXF dispatch");
+        }
+
+        ((DispatchImpl<?>) dispatch).getClient().getOutInterceptors().add(this);
+    }
+
+    /**
+     * Adds copies of the elements of the headers parsed by the calling thread to the message.
+     */
+    @Override
+    public void handleMessage(final SoapMessage message) {
+        final List<Element> elements = parsed.get();
+        for (int i = 0; i < elements.size(); i++) {
+            message.getHeaders().add(new SoapHeader(headers.get(i).name, elements.get(i).cloneNode(true)));
+        }
+    }
+
+    /**
+     * Parses the serialized headers into a document of the calling thread.
+     *
+     * @return elements of the headers
+     * @throws Fault
+     *             if a serialized header cannot be parsed
+     */
+    private List<Element> parse() {
+        final List<Element> elements = new ArrayList<>(headers.size());
+        for (final Header header : headers) {
+            try {
+                elements.add((Element) XmlUtil.parse(header.xml));
+            } catch (SAXException | IOException e) {
+                throw new Fault(e);
+            }
+        }
+
+        return elements;
+    }
+}
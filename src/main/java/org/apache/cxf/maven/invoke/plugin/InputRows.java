@@ -0,0 +1,426 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Rows of a data file, read lazily one row at a time so that files of any size can be processed. Two formats are
+ * supported: CSV with a header line naming the columns, and JSON lines, where each line is a flat JSON object. Files
+ * ending with {@code .jsonl}, {@code .ndjson} or {@code .json} are read as JSON lines, all other as CSV.
+ * <p>
+ * A malformed row, e.g. a CSV record with text after a closing quote or with the wrong number of values, or a line
+ * that is not a flat JSON object, is reported by {@link InputRows#next()} throwing {@link IllegalArgumentException},
+ * and reading continues with the following row.
+ */
+final class InputRows implements Iterator<Map<String, String>>, Closeable {
+
+    /**
+     * Reads the next row from the input, returns {@code null} at the end of input, throws
+     * {@link IllegalArgumentException} if the row is malformed
+     */
+    @FunctionalInterface
+    interface RowReader {
+        Map<String, String> read() throws IOException;
+    }
+
+    private final BufferedReader input;
+
+    private int line;
+
+    /** Failure to read the next row, if it is malformed */
+    private IllegalArgumentException malformed;
+
+    private Map<String, String> next;
+
+    private final RowReader reader;
+
+    private InputRows(final BufferedReader input, final boolean json) throws IOException {
+        this.input = input;
+
+        if (json) {
+            reader = this::readJson;
+        } else {
+            final List<String> header;
+            try {
+                header = readCsvRecord();
+            } catch (final IllegalArgumentException e) {
+                throw new IOException("CSV header line is malformed: " + e.getMessage(), e);
+            }
+            if (header == null) {
+                throw new IOException("CSV input has no header line");
+            }
+
+            reader = () -> readCsv(header);
+        }
+    }
+
+    /**
+     * Opens the given file, the format is determined by the file extension.
+     *
+     * @param file
+     *            file to read
+     * @return rows of the file
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    static InputRows open(final File file) throws IOException {
+        final String name = file.getName().toLowerCase();
+        final boolean json = name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json");
+
+        return read(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8), json);
+    }
+
+    /**
+     * Reads rows from the given reader.
+     *
+     * @param reader
+     *            input to read
+     * @param json
+     *            if true read JSON lines, otherwise CSV
+     * @return rows of the input
+     * @throws IOException
+     *             if the CSV header cannot be read
+     */
+    static InputRows read(final Reader reader, final boolean json) throws IOException {
+        final BufferedReader buffered = reader instanceof BufferedReader ? (BufferedReader) reader
+                : new BufferedReader(reader);
+        try {
+            return new InputRows(buffered, json);
+        } catch (final IOException | RuntimeException e) {
+            buffered.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ((next == null) && (malformed == null)) {
+            try {
+                next = reader.read();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (final IllegalArgumentException e) {
+                malformed = e;
+            }
+        }
+
+        return (next != null) || (malformed != null);
+    }
+
+    /**
+     * Line number of the input, 1 based, where the last returned row ended.
+     *
+     * @return line number
+     */
+    int line() {
+        return line;
+    }
+
+    /**
+     * Returns the next row.
+     *
+     * @return the next row
+     * @throws IllegalArgumentException
+     *             if the row is malformed, the following rows can still be read
+     */
+    @Override
+    public Map<String, String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        if (malformed != null) {
+            final IllegalArgumentException failure = malformed;
+            malformed = null;
+
+            throw failure;
+        }
+
+        final Map<String, String> row = next;
+        next = null;
+
+        return row;
+    }
+
+    private Map<String, String> readCsv(final List<String> header) throws IOException {
+        final List<String> values = readCsvRecord();
+        if (values == null) {
+            return null;
+        }
+
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("CSV record ending on line " + line + " has " + values.size()
+                    + " values, but the header has " + header.size() + " columns");
+        }
+
+        final Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            row.put(header.get(i), values.get(i));
+        }
+
+        return row;
+    }
+
+    /**
+     * Reads one CSV record as defined by RFC 4180, quoted values can contain commas, quotes and line breaks. Blank
+     * lines are skipped. A malformed record is read to its end, so that reading can continue with the next one.
+     */
+    private List<String> readCsvRecord() throws IOException {
+        String current;
+        do {
+            current = input.readLine();
+            line++;
+            if (current == null) {
+                return null;
+            }
+        } while (current.isEmpty());
+
+        final int start = line;
+        // reported once the whole record has been read
+        String error = null;
+        final List<String> values = new ArrayList<>();
+        final StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == current.length()) {
+                if (!quoted) {
+                    if (error != null) {
+                        throw new IllegalArgumentException(error);
+                    }
+
+                    values.add(value.toString());
+                    return values;
+                }
+
+                current = input.readLine();
+                line++;
+                if (current == null) {
+                    throw new IllegalArgumentException(
+                            "Unterminated quoted CSV value starting on line " + start + " at the end of input");
+                }
+                value.append('\n');
+                i = 0;
+                continue;
+            }
+
+            final char c = current.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if ((i < current.length()) && (current.charAt(i) == '"')) {
+                    value.append('"');
+                    i++;
+                } else {
+                    if ((error == null) && (i < current.length()) && (current.charAt(i) != ',')) {
+                        error = "Unexpected character after quoted CSV value on line " + line;
+                    }
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+    }
+
+    private Map<String, String> readJson() throws IOException {
+        String current;
+        do {
+            current = input.readLine();
+            line++;
+            if (current == null) {
+                return null;
+            }
+        } while (current.trim().isEmpty());
+
+        try {
+            return new JsonObjectParser(current).parse();
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unable to parse JSON on line " + line + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parser of flat JSON objects, values must be strings, numbers, booleans or {@code null}.
+     */
+    static final class JsonObjectParser {
+
+        private int position;
+
+        private final String text;
+
+        JsonObjectParser(final String text) {
+            this.text = text;
+        }
+
+        Map<String, String> parse() {
+            final Map<String, String> row = new LinkedHashMap<>();
+
+            expect('{');
+            if (peek() == '}') {
+                position++;
+            } else {
+                do {
+                    final String name = string();
+                    expect(':');
+                    row.put(name, value());
+                } while (separator());
+            }
+
+            skipWhitespace();
+            if (position != text.length()) {
+                throw new IllegalArgumentException("unexpected content after object at position " + position);
+            }
+
+            return row;
+        }
+
+        private void expect(final char expected) {
+            if (peek() != expected) {
+                throw new IllegalArgumentException("expected `" + expected + "` at position " + position);
+            }
+
+            position++;
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (position == text.length()) {
+                throw new IllegalArgumentException("unexpected end of line");
+            }
+
+            return text.charAt(position);
+        }
+
+        private boolean separator() {
+            final char c = peek();
+            position++;
+            if (c == ',') {
+                return true;
+            } else if (c == '}') {
+                return false;
+            }
+
+            throw new IllegalArgumentException("expected `,` or `}` at position " + (position - 1));
+        }
+
+        private void skipWhitespace() {
+            while ((position < text.length()) && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private String string() {
+            expect('"');
+
+            final StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                final char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                } else if (c != '\\') {
+                    value.append(c);
+                } else if (position == text.length()) {
+                    break;
+                } else {
+                    final char escaped = text.charAt(position++);
+                    switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw new IllegalArgumentException("truncated unicode escape at position " + position);
+                        }
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                    }
+                }
+            }
+
+            throw new IllegalArgumentException("unterminated string");
+        }
+
+        private String value() {
+            final char c = peek();
+            if (c == '"') {
+                return string();
+            } else if ((c == '{') || (c == '[')) {
+                throw new IllegalArgumentException("nested objects and arrays are not supported, at position "
+                        + position);
+            }
+
+            final int start = position;
+            while ((position < text.length()) && (",}".indexOf(text.charAt(position)) < 0)
+                    && !Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+
+            final String literal = text.substring(start, position);
+            if ("null".equals(literal)) {
+                return null;
+            }
+
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("expected value at position " + start);
+            }
+
+            return literal;
+        }
+    }
+}
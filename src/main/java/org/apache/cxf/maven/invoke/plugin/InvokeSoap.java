@@ -19,86 +19,235 @@
 package org.apache.cxf.maven.invoke.plugin;
 
 import java.io.File;
-import java.net.MalformedURLException;
-import java.net.URI;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import javax.xml.namespace.QName;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.dom.DOMResult;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.ws.BindingProvider;
 import javax.xml.ws.Dispatch;
-import javax.xml.ws.Service;
-import javax.xml.ws.handler.MessageContext;
+import javax.xml.ws.WebServiceException;
+import javax.xml.ws.soap.SOAPFaultException;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 
 import org.w3c.dom.Document;
-import org.w3c.dom.Node;
 
-import org.apache.cxf.feature.LoggingFeature;
-import org.apache.maven.plugin.AbstractMojo;
-import org.apache.maven.plugin.MojoExecution;
+import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.project.MavenProject;
-
-import static org.apache.cxf.maven.invoke.plugin.XmlUtil.document;
 
 /**
  * Maven MOJO to invoke SOAP service in Maven execution. Not tied to any Maven lifecycle phase so configure your own
  * executions.
  */
 @Mojo(name = "invoke-soap", defaultPhase = LifecyclePhase.NONE)
-public final class InvokeSoap extends AbstractMojo {
+public final class InvokeSoap extends AbstractInvokeSoap {
+
+    /**
+     * Which request and response XMLs are stored.
+     */
+    public enum ArtifactPolicy {
+        /** Store the request and response of every invocation */
+        ALWAYS,
+        /** Store nothing */
+        NEVER,
+        /** Store the request and response, or the SOAP fault, only of invocations that fail */
+        ON_FAULT,
+        /** Store the request and response of every {@link InvokeSoap#artifactSampling}th invocation */
+        SAMPLED
+    }
+
+    /**
+     * Invokes the SOAP service, possibly repeatedly, with the given payload. May block until there is capacity to send
+     * the request.
+     */
+    @FunctionalInterface
+    interface Invocation {
+        CompletableFuture<Document> invoke(Payload payload, String suffix) throws InterruptedException;
+    }
+
+    /**
+     * {@link Dispatch} used for one invocation at a time, as it is not safe to use concurrently.
+     */
+    static final class Worker {
+
+        final Dispatch<Source> dispatch;
+
+        Worker(final Dispatch<Source> dispatch) {
+            this.dispatch = dispatch;
+        }
+    }
+
+    /** Number of request and response XMLs that can wait to be written, before invoking threads block */
+    static final int ARTIFACT_QUEUE_SIZE = 64;
+
+    /** Counts invocations for {@link ArtifactPolicy#SAMPLED} */
+    final AtomicLong artifactCounter = new AtomicLong();
+
+    /**
+     * Which request and response XMLs to store: {@code ALWAYS}, {@code NEVER}, {@code ON_FAULT} or {@code SAMPLED}
+     * every {@link InvokeSoap#artifactSampling}th invocation. If a stored invocation fails with a SOAP fault the fault
+     * is stored as the response
+     */
+    @Parameter(property = "cxf.invoke.artifacts.policy", defaultValue = "ALWAYS")
+    ArtifactPolicy artifactPolicy = ArtifactPolicy.ALWAYS;
+
+    /**
+     * If true request and response XMLs are appended as entries to a single {@code <executionId>.zip} archive in
+     * {@link AbstractInvokeSoap#requestPath}, deflated if {@link InvokeSoap#compressArtifacts}, instead of being
+     * written as individual files. As entries cannot be replaced, a response that would replace the previous one is
+     * kept as {@code response~N.xml}
+     */
+    @Parameter(property = "cxf.invoke.artifacts.archive", defaultValue = "false")
+    boolean archiveArtifacts;
+
+    /** Writes the request and response XMLs, in the background during execution */
+    ArtifactWriter artifacts = new ArtifactWriter();
+
+    /** With {@link ArtifactPolicy#SAMPLED} policy, store the request and response of every Nth invocation */
+    @Parameter(property = "cxf.invoke.artifacts.sampling", defaultValue = "100")
+    int artifactSampling = 100;
 
-    /** URL for the service where the request will be sent */
-    @Parameter(property = "cxf.invoke.endpoint", required = false)
-    String endpoint;
+    /**
+     * If true requests are sent using {@link Dispatch#invokeAsync(Object, javax.xml.ws.AsyncHandler)} over the
+     * asynchronous HTTP transport, so that up to {@link InvokeSoap#maxInFlight} requests can be outstanding without a
+     * thread waiting on each of them. Repeated requests then wait for their next poll only in the
+     * {@link PollingScheduler}, while without it each invoking thread blocks until its next poll is due, so at most
+     * {@link InvokeSoap#parallelism} requests are polled at a time
+     */
+    @Parameter(property = "cxf.invoke.async", defaultValue = "false")
+    boolean async;
+
+    /**
+     * If true every element of {@link InvokeSoap#request} is sent as a separate request, request and response XMLs are
+     * stored as {@code request-N.xml} and {@code response-N.xml} and properties are extracted as {@code name.N}
+     */
+    @Parameter(property = "cxf.invoke.batch", defaultValue = "false")
+    boolean batch;
+
+    /** If true request and response XMLs are stored gzip compressed, with {@code .gz} appended to their names */
+    @Parameter(property = "cxf.invoke.artifacts.compress", defaultValue = "false")
+    boolean compressArtifacts;
+
+    /**
+     * Evaluates the {@link InvokeSoap#properties} expressions in a single traversal of the response, created on
+     * execution
+     */
+    ResponseEvaluator evaluator;
+
+    /**
+     * CSV or JSON lines file, one SOAP request is sent for each row of it. The first element of
+     * {@link InvokeSoap#request} is used as the template, with {@code #{column}} placeholders replaced by the values
+     * of the row
+     */
+    @Parameter(property = "cxf.invoke.input.file", required = false)
+    File inputFile;
+
+    /**
+     * If true, when the request is repeated, the response of each invocation is kept as {@code response-N.xml}, or
+     * {@code response-M-N.xml} in batch mode, instead of being overwritten by the next one
+     */
+    @Parameter(property = "cxf.invoke.artifacts.keepIterations", defaultValue = "false")
+    boolean keepIterations;
 
-    /** SOAP headers to add in the request */
-    @Parameter(property = "cxf.invoke.headers", required = false)
-    Node[] headers;
+    /** Maximum size in bytes of stored request and response XMLs, the rest is discarded, 0 for no limit */
+    @Parameter(property = "cxf.invoke.artifacts.maxSize", defaultValue = "0")
+    long maxArtifactSize;
 
-    /** {@link MojoExecution} needed to get execution id */
-    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
-    MojoExecution mojoExecution;
+    /** In async mode, maximum number of requests awaiting response, further requests wait until one completes */
+    @Parameter(property = "cxf.invoke.maxInFlight", defaultValue = "100")
+    int maxInFlight = 100;
 
-    /** Target namespace of the SOAP service */
-    @Parameter(property = "cxf.invoke.namespace", required = true)
-    String namespace;
+    /**
+     * File in which the outcome of each request sent for {@link InvokeSoap#inputFile} is recorded, by default
+     * {@code results.csv} in the directory with request and response XMLs
+     */
+    @Parameter(property = "cxf.invoke.output.file", required = false)
+    File outputFile;
 
-    /** Operation to invoke on the service */
-    @Parameter(property = "cxf.invoke.operation", required = true)
-    String operation;
+    /** In batch mode or with input file, how many requests to send concurrently */
+    @Parameter(property = "cxf.invoke.parallelism", defaultValue = "1")
+    int parallelism = 1;
 
-    /** Port name of the SOAP service */
-    @Parameter(property = "cxf.invoke.port", required = false)
-    String portName;
+    /** Schedules repeated requests of all executions within the Maven session */
+    @Component
+    PollingScheduler pollingScheduler = new PollingScheduler();
 
-    /** Needed to set any extracted properties */
-    @Parameter(readonly = true, defaultValue = "${project}")
-    MavenProject project;
+    /** Projection used to evaluate the expressions in streaming mode, {@code null} if the whole response is needed */
+    ResponseProjection projection;
 
     /** Properties to extract from the SOAP response */
     @Parameter(property = "cxf.invoke.properties")
     final Map<String, String> properties = new HashMap<>();
 
-    /** If repeating, how long to wait before next invocation of the service, default 5 seconds */
+    /**
+     * Evaluates only the {@link InvokeSoap#repeatUntil} expression, so that the properties are not evaluated on every
+     * poll, created on execution if repeating
+     */
+    ResponseEvaluator repeatEvaluator;
+
+    /**
+     * If repeating, how long to wait before next invocation of the service, default 5 seconds. With
+     * {@link InvokeSoap#repeatMultiplier} this is the interval after the first invocation
+     */
     @Parameter(property = "cxf.invoke.repeatInterval", required = false, defaultValue = "5000")
     int repeatInterval;
 
+    /** Fraction, from 0 to 1, by which each repeat interval is randomly lengthened or shortened, default 0 */
+    @Parameter(property = "cxf.invoke.repeatJitter", required = false, defaultValue = "0")
+    double repeatJitter;
+
+    /** Maximum number of invocations when repeating, the build fails once reached, 0 (default) for no limit */
+    @Parameter(property = "cxf.invoke.repeatMaxAttempts", required = false, defaultValue = "0")
+    int repeatMaxAttempts;
+
+    /** Upper bound of the repeat interval in milliseconds, 0 (default) for no bound */
+    @Parameter(property = "cxf.invoke.repeatMaxInterval", required = false, defaultValue = "0")
+    long repeatMaxInterval;
+
+    /** Factor by which the repeat interval grows after each invocation, default 1 for fixed interval */
+    @Parameter(property = "cxf.invoke.repeatMultiplier", required = false, defaultValue = "1")
+    double repeatMultiplier = 1;
+
+    /**
+     * Maximum time in milliseconds to keep repeating, from the start of the first invocation, the build fails once
+     * reached, 0 (default) for no limit
+     */
+    @Parameter(property = "cxf.invoke.repeatTimeout", required = false, defaultValue = "0")
+    long repeatTimeout;
+
     /** XPath expression to determine if the request should be repeated */
     @Parameter(property = "cxf.invoke.repeatUntil", required = false)
     String repeatUntil;
@@ -106,130 +255,526 @@ public final class InvokeSoap extends AbstractMojo {
     /** Compiled XPath expression for repetition */
     XPathExpression repeatUntilExpression;
 
-    /** SOAP request, Maven parameter conversion forces us to use array even if only has one element */
-    @Parameter(property = "cxf.invoke.request", required = true)
-    Node[] request;
+    /**
+     * If true the SOAP response is streamed to file and only the parts of it needed to evaluate the
+     * {@link InvokeSoap#properties} and {@link InvokeSoap#repeatUntil} expressions are kept in memory, see
+     * {@link ResponseProjection} for the supported expressions. If any other expression is used the whole response is
+     * parsed to DOM as without streaming
+     */
+    @Parameter(property = "cxf.invoke.streaming", defaultValue = "false")
+    boolean streaming;
+
+    /**
+     * Cache of compiled {@link InvokeSoap#properties} and {@link InvokeSoap#repeatUntil} expressions shared by all
+     * executions, replaced by the shared instance when injected
+     */
+    @Component
+    XPathCache xpathCache = new XPathCache();
+
+    /**
+     * Main MOJO entry point, invokes the SOAP service, repeats if needed, and extracts the properties in the end. The
+     * same {@link Dispatch} is used for all repetitions and the latency of each invocation is logged. Request XMLs are
+     * written in the background and responses as they are read, all of them are written before the execution
+     * completes.
+     */
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (repeatUntil != null) {
+            try {
+                repeatUntilExpression = xpathCache.get(repeatUntil);
+            } catch (final XPathExpressionException e) {
+                throw new MojoExecutionException("Unable to compile XPath expression `" + repeatUntil + "`", e);
+            }
+
+            pollingPolicy();
+        }
 
-    /** Path in which to store SOAP request and response XMLs */
-    @Parameter(property = "cxf.invoke.request.path", required = true, defaultValue = "${project.build.directory}")
-    File requestPath;
+        if ((requestFile != null) && (batch || (inputFile != null))) {
+            throw new MojoExecutionException("`requestFile` cannot be used in batch mode or with `inputFile`");
+        }
+        // fail before invoking anything if there is no request
+        requestPayload();
 
-    /** Name of the SOAP service to invoke */
-    @Parameter(property = "cxf.invoke.service", required = true)
-    String serviceName;
+        evaluator = new ResponseEvaluator(properties.values(), xpathCache);
+        if (repeatUntil != null) {
+            repeatEvaluator = new ResponseEvaluator(Collections.singletonList(repeatUntil), xpathCache);
+        }
 
-    final Transformer transformer;
+        if (streaming) {
+            projection = projection();
+        }
 
-    /** URL for the WSDL document of the SOAP service */
-    @Parameter(property = "cxf.invoke.wsdl", required = true)
-    URI wsdl;
+        serviceCache.session(session);
 
-    public InvokeSoap() {
-        this(XmlUtil.transformer());
+        final File archive = archiveArtifacts ? new File(requestPath, mojoExecution.getExecutionId() + ".zip") : null;
+        artifacts = new ArtifactWriter(compressArtifacts, maxArtifactSize, archive, ARTIFACT_QUEUE_SIZE,
+                "cxf-invoke-artifacts");
+        boolean completed = false;
+        try {
+            if (async) {
+                final Dispatch<Source> dispatch = createDispatch();
+                try {
+                    final AsyncInvoker invoker = new AsyncInvoker(dispatch, maxInFlight);
+                    if (inputFile != null) {
+                        invokeRows((payload, suffix) -> invokeAsyncUntilDone(invoker, payload, suffix, 1, 0,
+                                System.nanoTime()));
+                    } else {
+                        invokeAsync(invoker);
+                    }
+                } finally {
+                    close(dispatch);
+                }
+            } else {
+                invokeSync();
+            }
+            completed = true;
+        } finally {
+            try {
+                artifacts.close();
+            } catch (final IOException e) {
+                if (completed) {
+                    throw new MojoExecutionException("Unable to store request and response XMLs", e);
+                }
+                // the failure of the invocations is reported instead
+                getLog().warn("Unable to store request and response XMLs", e);
+            }
+        }
+
+        getLog().info(serviceCache.toString());
+        if (compression != null) {
+            getLog().info(compression.toString());
+        }
+        if (getLog().isDebugEnabled()) {
+            getLog().debug(xpathCache.toString());
+            getLog().debug(pollingScheduler.toString());
+        }
     }
 
-    InvokeSoap(final Transformer transformer) {
-        this.transformer = transformer;
+    /**
+     * Sends the request, in batch mode all requests, or a request for each row of the input file, blocking a thread
+     * on each outstanding request.
+     *
+     * @throws MojoExecutionException
+     *             if any of the requests fails
+     */
+    void invokeSync() throws MojoExecutionException {
+        final int count = inputFile != null ? parallelism : batch ? request.length : 1;
+        final int workerCount = Math.max(1, Math.min(parallelism, count));
+
+        final List<Worker> workers = new ArrayList<>(workerCount);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(new Worker(createDispatch()));
+            }
+
+            if (inputFile != null) {
+                invokeRows(workers);
+            } else if (batch) {
+                invokeBatch(workers);
+            } else {
+                extractProperties(invokeUntilDone(workers.get(0), requestPayload(), ""));
+            }
+        } finally {
+            workers.forEach(w -> close(w.dispatch));
+        }
     }
 
     /**
-     * Given a request, return {@link Source}.
+     * Sends the request, or in batch mode all requests, asynchronously using the given invoker. Responses are stored
+     * and evaluated as they arrive, repeated requests are scheduled according to the
+     * {@link InvokeSoap#pollingPolicy()} without holding a thread meanwhile.
      *
-     * @param request
-     * @return the source
+     * @param invoker
+     *            invoker limiting the number of outstanding requests
+     * @throws MojoExecutionException
+     *             if any of the requests fails
      */
-    static Source createRequest(final Node request) {
-        return new DOMSource(request);
+    void invokeAsync(final AsyncInvoker invoker) throws MojoExecutionException {
+        final int count = batch ? request.length : 1;
+
+        final List<CompletableFuture<Document>> responses = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                final String suffix = batch ? "-" + (i + 1) : "";
+                final String propertySuffix = batch ? "." + (i + 1) : "";
+                final Payload payload;
+                if (batch) {
+                    payload = createRequest(request[i]);
+                } else {
+                    payload = requestPayload();
+                }
+
+                responses.add(invokeAsyncUntilDone(invoker, payload, suffix, 1, 0, System.nanoTime())
+                        .thenApply(response -> {
+                            extractProperties(response, propertySuffix);
+
+                            return response;
+                        }));
+            }
+
+            for (final Future<Document> response : responses) {
+                response.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while invoking `" + operation + "`", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof MojoExecutionException) {
+                throw (MojoExecutionException) cause;
+            }
+
+            throw new MojoExecutionException("Unable to invoke `" + operation + "`", cause);
+        }
     }
 
     /**
-     * Main MOJO entry point, invokes the SOAP service, repeats if needed, and extracts the properties in the end.
+     * Asynchronous counterpart of {@link InvokeSoap#invokeUntilDone(Worker, Payload, String)}, invokes the SOAP service
+     * and, if {@link InvokeSoap#repeatUntil} expression evaluates to true, schedules the next invocation.
+     *
+     * @param invoker
+     *            invoker to use
+     * @param payload
+     *            request to send
+     * @param suffix
+     *            suffix of stored request and response XMLs
+     * @param invocation
+     *            number of this invocation
+     * @param totalLatency
+     *            sum of latencies of the previous invocations in milliseconds
+     * @param started
+     *            {@link System#nanoTime()} at the start of the first invocation
+     * @return future completed with the last SOAP response
+     * @throws InterruptedException
+     *             if interrupted while waiting for an outstanding request to complete
      */
-    @Override
-    public void execute() throws MojoExecutionException {
-        if (repeatUntil != null) {
+    CompletableFuture<Document> invokeAsyncUntilDone(final AsyncInvoker invoker, final Payload payload,
+            final String suffix, final int invocation, final long totalLatency, final long started)
+            throws InterruptedException {
+        final File executionDir = executionDir();
+        final boolean store = storeArtifacts();
+
+        final Source soapRequest;
+        try {
+            soapRequest = storesRequest(store, invocation)
+                    ? storeRequest(executionDir, payload, suffix)
+                    : payload.source();
+        } catch (final MojoExecutionException e) {
+            return failed(e);
+        }
+
+        final long start = System.nanoTime();
+
+        final Consumer<Map<String, Object>> attachments = !mtomEnabled() ? null : context -> {
             try {
-                repeatUntilExpression = XmlUtil.xpathExpression(repeatUntil);
-            } catch (final XPathExpressionException e) {
-                throw new MojoExecutionException("Unable to compile XPath expression `" + repeatUntil + "`", e);
+                storeAttachments(executionDir, context, iterationSuffix(suffix, invocation));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
             }
-        }
+        };
 
-        boolean first = true;
-        Document response;
-        do {
-            if (!first) {
-                try {
-                    Thread.sleep(repeatInterval);
-                } catch (final InterruptedException e) {
-                    return;
-                }
+        return invoker.invoke(soapRequest, attachments).whenComplete((soapResponse, failure) -> {
+            if (failure instanceof WebServiceException) {
+                storeFailure(executionDir, payload, suffix, invocation, store,
+                        (WebServiceException) failure);
             }
-            first = false;
+        }).thenCompose(soapResponse -> {
+            final long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            getLog().info("Invocation " + invocation + " of `" + operation + suffix + "` took " + latency + " ms");
+
+            try {
+                final Document response = store
+                        ? storeResponse(executionDir, soapResponse, iterationSuffix(suffix, invocation))
+                        : readResponse(soapResponse);
 
-            response = invokeService();
+                if (shouldRepeat(response)) {
+                    final long delay = pollingPolicy().delay(invocation,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), "`" + operation + suffix + "`");
 
-        } while (shouldRepeat(response));
+                    return pollingScheduler.schedule(pollingKey(), delay, () -> {
+                        try {
+                            return invokeAsyncUntilDone(invoker, payload, suffix, invocation + 1,
+                                    totalLatency + latency, started);
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return failed(e);
+                        }
+                    });
+                }
 
-        extractProperties(response);
+                if (invocation > 1) {
+                    getLog().info("Invoked `" + operation + suffix + "` " + invocation + " times, average latency "
+                            + ((totalLatency + latency) / invocation) + " ms");
+                }
+
+                return CompletableFuture.completedFuture(response);
+            } catch (final MojoExecutionException e) {
+                return failed(e);
+            }
+        });
     }
 
     /**
-     * Creates {@link Service} using the {@link InvokeSoap#wsdl},{@link InvokeSoap#namespace} and
-     * {@link InvokeSoap#serviceName}, attaching any {@link InvokeSoap#headers} via {@link HeadersHandlerResolver}.
+     * Returns a future completed with the given failure.
      *
-     * @return created service
+     * @param failure
+     *            cause of the failure
+     * @return failed future
+     */
+    static <T> CompletableFuture<T> failed(final Throwable failure) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(failure);
+
+        return future;
+    }
+
+    /**
+     * Sends every element of {@link InvokeSoap#request}, using each of the given workers in its own thread.
+     *
+     * @param workers
+     *            workers to use, at most one request is in progress per worker
      * @throws MojoExecutionException
-     *             if WSDL URL is malformed
+     *             if any of the requests fails
      */
-    Service createService() throws MojoExecutionException {
-        final Service service;
+    void invokeBatch(final List<Worker> workers) throws MojoExecutionException {
+        final BlockingQueue<Worker> available = new ArrayBlockingQueue<>(workers.size(), false, workers);
+
+        final ExecutorService executor = executor(workers.size());
+
         try {
-            if (getLog().isDebugEnabled()) {
-                service = Service.create(wsdl.toURL(), new QName(namespace, serviceName), new LoggingFeature());
-            } else {
-                service = Service.create(wsdl.toURL(), new QName(namespace, serviceName));
+            final List<Future<Document>> responses = new ArrayList<>(request.length);
+            for (int i = 0; i < request.length; i++) {
+                final Payload payload = createRequest(request[i]);
+                final int number = i + 1;
+
+                responses.add(executor.submit(() -> {
+                    final Worker worker = available.take();
+                    try {
+                        final Document response = invokeUntilDone(worker, payload, "-" + number);
+                        extractProperties(response, "." + number);
+
+                        return response;
+                    } finally {
+                        available.add(worker);
+                    }
+                }));
+            }
+
+            for (final Future<Document> response : responses) {
+                response.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while invoking `" + operation + "`", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof MojoExecutionException) {
+                throw (MojoExecutionException) cause;
             }
-        } catch (final MalformedURLException e) {
-            throw new MojoExecutionException("Unable to convert `" + wsdl + "` to URL", e);
-        }
 
-        if ((headers != null) && (headers.length != 0)) {
-            service.setHandlerResolver(new HeadersHandlerResolver(headers));
+            throw new MojoExecutionException("Unable to invoke `" + operation + "`", cause);
+        } finally {
+            executor.shutdownNow();
         }
-        return service;
     }
 
     /**
-     * Returns SOAP port of the service to use. If specific port is specified use that, otherwise use the one port
-     * defined in WSDL.
+     * Sends a request for each row of the {@link InvokeSoap#inputFile}, using each of the given workers in its own
+     * thread.
      *
-     * @param service
-     *            SOAP service
-     * @return SOAP port to use
+     * @param workers
+     *            workers to use, at most one request is in progress per worker
      * @throws MojoExecutionException
-     *             if there are none or more than one ports in the service when specific port has not been defined
+     *             if the input file cannot be processed or any of the requests fails
      */
-    QName determinePort(final Service service) throws MojoExecutionException {
-        if (portName != null) {
-            return new QName(namespace, portName);
+    void invokeRows(final List<Worker> workers) throws MojoExecutionException {
+        final BlockingQueue<Worker> available = new ArrayBlockingQueue<>(workers.size(), false, workers);
+
+        final ExecutorService executor = executor(workers.size());
+        try {
+            invokeRows((payload, suffix) -> {
+                final Worker worker = available.take();
+
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return invokeUntilDone(worker, payload, suffix);
+                    } catch (final MojoExecutionException e) {
+                        throw new CompletionException(e);
+                    } finally {
+                        available.add(worker);
+                    }
+                }, executor);
+            });
+        } finally {
+            executor.shutdownNow();
         }
+    }
+
+    /**
+     * Reads the {@link InvokeSoap#inputFile} row by row, creates a request for each row from the
+     * {@link InvokeSoap#request} template and sends it using the given invocation. The outcome of each request, with
+     * any extracted properties, is appended to the {@link InvokeSoap#outputFile} as soon as it completes, so neither
+     * the rows nor the responses are held in memory. Malformed rows, and rows the template cannot be applied to, are
+     * recorded as failures without sending a request.
+     *
+     * @param invocation
+     *            sends the requests, blocking while there is no capacity to send more
+     * @throws MojoExecutionException
+     *             if the input file cannot be read, results cannot be written or any of the requests fails
+     */
+    void invokeRows(final Invocation invocation) throws MojoExecutionException {
+        final RequestTemplate template = new RequestTemplate(request[0]);
+        final File results = outputFile != null ? outputFile : new File(executionDir(), "results.csv");
+
+        final AtomicReference<Exception> writeFailure = new AtomicReference<>();
+        final Phaser pending = new Phaser(1);
+        int rows = 0;
+        int failures;
+        try (InputRows input = InputRows.open(inputFile);
+                ResultWriter writer = new ResultWriter(results, new TreeSet<>(properties.keySet()))) {
+            try {
+                while (input.hasNext()) {
+                    final int number = ++rows;
+                    final long start = System.nanoTime();
 
-        final Iterator<QName> ports = service.getPorts();
+                    final Payload payload;
+                    try {
+                        payload = template.apply(input.next());
+                    } catch (final IllegalArgumentException e) {
+                        writer.failure(number, 0, e);
+                        continue;
+                    }
 
-        if (ports.hasNext()) {
-            final QName port = ports.next();
+                    pending.register();
+                    final CompletableFuture<Document> invoked;
+                    try {
+                        invoked = invocation.invoke(payload, "-" + number);
+                    } catch (final InterruptedException | RuntimeException e) {
+                        pending.arriveAndDeregister();
+                        throw e;
+                    }
 
-            if (ports.hasNext()) {
-                throw new MojoExecutionException("Found more than one port type defined in specified WSDL `" + wsdl
-                        + "`, please specify which one to use with `portName` configuration option");
+                    invoked.whenComplete((response, failure) -> {
+                        final long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        try {
+                            if (failure != null) {
+                                writer.failure(number, latency,
+                                        failure instanceof CompletionException ? failure.getCause() : failure);
+                            } else {
+                                writer.success(number, latency, evaluateProperties(response));
+                            }
+                        } catch (final IOException | RuntimeException e) {
+                            writeFailure.compareAndSet(null, e);
+                        } finally {
+                            pending.arriveAndDeregister();
+                        }
+                    });
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                pending.arriveAndAwaitAdvance();
             }
-            return port;
-        } else {
+
+            failures = writer.failures();
+        } catch (final IOException | UncheckedIOException e) {
+            throw new MojoExecutionException("Unable to read rows from `" + inputFile + "` or to write results to `"
+                    + results + "`", e);
+        }
+
+        if (writeFailure.get() != null) {
+            throw new MojoExecutionException("Unable to record results to `" + results + "`", writeFailure.get());
+        }
+
+        getLog().info("Invoked `" + operation + "` for " + rows + " rows of `" + inputFile + "`, results stored in `"
+                + results + "`");
+
+        if (failures > 0) {
             throw new MojoExecutionException(
-                    "Given WSDL `" + wsdl + "` does not specify any port types, please specify one to use with "
-                            + "`portName` configuration option");
+                    failures + " of " + rows + " requests failed, see `" + results + "` for details");
+        }
+    }
+
+    /**
+     * Creates executor with the given number of daemon threads named after the execution.
+     *
+     * @param threads
+     *            number of threads
+     * @return new executor
+     */
+    ExecutorService executor(final int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger created = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable,
+                        "cxf-invoke-" + mojoExecution.getExecutionId() + "-" + created.incrementAndGet());
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Invokes the SOAP service with the given request until {@link InvokeSoap#repeatUntil} expression no longer
+     * evaluates to true, logging the latency of each invocation. The polls are timed by the {@link PollingScheduler},
+     * but the calling thread blocks until each is due, unlike with {@link InvokeSoap#async}.
+     *
+     * @param worker
+     *            dispatch to use
+     * @param payload
+     *            request to send
+     * @param suffix
+     *            suffix of stored request and response XMLs
+     * @return last SOAP response
+     * @throws MojoExecutionException
+     *             if unable to invoke the service or to evaluate the repeat expression, if the polling policy gives up
+     *             or if interrupted while waiting to repeat
+     */
+    Document invokeUntilDone(final Worker worker, final Payload payload, final String suffix)
+            throws MojoExecutionException {
+        final PollingPolicy polling = pollingPolicy();
+        final long started = System.nanoTime();
+
+        int invocations = 0;
+        long totalLatency = 0;
+        Document response;
+        while (true) {
+            final long start = System.nanoTime();
+
+            response = invokeService(worker, payload, suffix, invocations + 1);
+
+            final long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            invocations++;
+            totalLatency += latency;
+            getLog().info("Invocation " + invocations + " of `" + operation + suffix + "` took " + latency + " ms");
+
+            if (!shouldRepeat(response)) {
+                break;
+            }
+
+            final long delay = polling.delay(invocations, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                    "`" + operation + suffix + "`");
+            try {
+                pollingScheduler.after(pollingKey(), delay).get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while waiting to repeat `" + operation + suffix + "`",
+                        e);
+            } catch (final ExecutionException e) {
+                throw new MojoExecutionException("Unable to wait to repeat `" + operation + suffix + "`",
+                        e.getCause());
+            }
+        }
+
+        if (invocations > 1) {
+            getLog().info("Invoked `" + operation + suffix + "` " + invocations + " times, average latency "
+                    + (totalLatency / invocations) + " ms");
         }
+
+        return response;
     }
 
     /**
@@ -242,80 +787,376 @@ public final class InvokeSoap extends AbstractMojo {
      *             if XPath expression cannot be compiled or there is an error evaluating the expression
      */
     void extractProperties(final Document response) {
+        extractProperties(response, "");
+    }
+
+    /**
+     * Extracts properties defined by XPath expressions from the SOAP response, appending the given suffix to the
+     * property names.
+     *
+     * @param response
+     *            SOAP response
+     * @param suffix
+     *            suffix for property names, empty unless in batch mode
+     *
+     * @throws IllegalArgumentException
+     *             if XPath expression cannot be compiled or there is an error evaluating the expression
+     */
+    void extractProperties(final Document response, final String suffix) {
         if (properties.isEmpty()) {
             return;
         }
 
-        final Map<String, Object> values = properties.entrySet().stream()
-                .collect(Collectors.toMap(e -> e.getKey(), e -> {
-                    try {
-                        final XPathExpression expression = XmlUtil.xpathExpression(e.getValue());
-
-                        return expression.evaluate(response, XPathConstants.STRING);
-                    } catch (final XPathExpressionException ex) {
-                        throw new IllegalArgumentException("Unable to get property " + e.getKey()
-                                + " from XML using XPath expression `" + e.getValue() + "`", ex);
-                    }
-                }));
+        final Map<String, String> values = evaluateProperties(response).entrySet().stream()
+                .collect(Collectors.toMap(e -> e.getKey() + suffix, Map.Entry::getValue));
 
         final Properties projectProperties = project.getProperties();
         projectProperties.putAll(values);
     }
 
+    /**
+     * Evaluates XPath expressions of the properties on the SOAP response, all in a single traversal of it, see
+     * {@link ResponseEvaluator}.
+     *
+     * @param response
+     *            SOAP response
+     * @return property values by name
+     *
+     * @throws IllegalArgumentException
+     *             if XPath expression cannot be compiled or there is an error evaluating the expression
+     */
+    Map<String, String> evaluateProperties(final Document response) {
+        final ResponseEvaluator.Result values = (evaluator != null ? evaluator
+                : new ResponseEvaluator(properties.values(), xpathCache)).evaluate(response);
+
+        return properties.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> {
+            try {
+                return values.string(e.getValue());
+            } catch (final XPathExpressionException ex) {
+                throw new IllegalArgumentException("Unable to get property " + e.getKey()
+                        + " from XML using XPath expression `" + e.getValue() + "`", ex);
+            }
+        }));
+    }
+
+    /**
+     * Expressions evaluated on the responses, {@link InvokeSoap#properties} and {@link InvokeSoap#repeatUntil}.
+     *
+     * @return XPath expressions
+     */
+    List<String> expressions() {
+        final List<String> expressions = new ArrayList<>(properties.values());
+        if (repeatUntil != null) {
+            expressions.add(repeatUntil);
+        }
+
+        return expressions;
+    }
+
+    /**
+     * Creates the projection for evaluating {@link InvokeSoap#properties} and {@link InvokeSoap#repeatUntil}
+     * expressions in streaming mode.
+     *
+     * @return the projection, or {@code null} if any of the expressions needs the whole response
+     */
+    ResponseProjection projection() {
+        final ResponseProjection created = new ResponseProjection(expressions());
+        if (!created.unsupported().isEmpty()) {
+            getLog().warn("Expressions " + created.unsupported()
+                    + " cannot be evaluated while streaming, responses will be parsed whole");
+
+            return null;
+        }
+
+        return created;
+    }
+
     /**
      * Invokes the SOAP service.
      *
+     * @param worker
+     *            dispatch to use for the invocation, see {@link InvokeSoap#createDispatch()}
+     * @param payload
+     *            request to send
+     * @param suffix
+     *            suffix of stored request and response XMLs, empty unless in batch mode
      * @return SOAP response
      * @throws MojoExecutionException
      *             if unable to serialize request or response XML
      * @throws javax.xml.ws.WebServiceException
      *             see {@link Dispatch#invoke(Object)}
      */
-    Document invokeService() throws MojoExecutionException {
-        final Service service = createService();
+    Document invokeService(final Worker worker, final Payload payload, final String suffix)
+            throws MojoExecutionException {
+        return invokeService(worker, payload, suffix, 1);
+    }
 
-        final QName port = determinePort(service);
+    /**
+     * Invokes the SOAP service, storing the request only on the first invocation, as it is the same for all of them.
+     *
+     * @param worker
+     *            dispatch to use for the invocation, see {@link InvokeSoap#createDispatch()}
+     * @param payload
+     *            request to send
+     * @param suffix
+     *            suffix of stored request and response XMLs, empty unless in batch mode
+     * @param invocation
+     *            number of this invocation, greater than 1 if the request is repeated
+     * @return SOAP response
+     * @throws MojoExecutionException
+     *             if unable to serialize request or response XML
+     * @throws javax.xml.ws.WebServiceException
+     *             see {@link Dispatch#invoke(Object)}
+     */
+    Document invokeService(final Worker worker, final Payload payload, final String suffix, final int invocation)
+            throws MojoExecutionException {
+        final File executionDir = executionDir();
+        final boolean store = storeArtifacts();
+
+        final Source soapRequest = storesRequest(store, invocation)
+                ? storeRequest(executionDir, payload, suffix)
+                : payload.source();
 
-        final File executionDir = new File(requestPath, mojoExecution.getExecutionId());
-        if (!executionDir.exists()) {
-            executionDir.mkdirs();
+        final Source soapResponse;
+        try {
+            soapResponse = worker.dispatch.invoke(soapRequest);
+        } catch (final WebServiceException e) {
+            storeFailure(executionDir, payload, suffix, invocation, store, e);
+            throw e;
         }
 
-        final Source soapRequest = createRequest(request[0]);
+        final Document response = store
+                ? storeResponse(executionDir, soapResponse, iterationSuffix(suffix, invocation))
+                : readResponse(soapResponse);
 
-        final File requestFile = new File(executionDir, "request.xml");
-        try {
-            transformer.transform(soapRequest, new StreamResult(requestFile));
-        } catch (final TransformerException e) {
-            throw new MojoExecutionException("Unable to store request XML to file `" + requestFile + "`", e);
+        if (mtomEnabled()) {
+            try {
+                storeAttachments(executionDir, worker.dispatch.getResponseContext(),
+                        iterationSuffix(suffix, invocation));
+            } catch (final IOException e) {
+                throw new MojoExecutionException("Unable to store response attachments in `" + executionDir + "`", e);
+            }
         }
 
-        final Dispatch<Source> dispatch = service.createDispatch(port, Source.class, Service.Mode.PAYLOAD);
+        return response;
+    }
 
-        final Map<String, Object> requestContext = dispatch.getRequestContext();
-        requestContext.put(MessageContext.WSDL_OPERATION, new QName(namespace, operation));
+    /**
+     * Streams the attachments of the response to {@code attachment<suffix>-<Content-ID>} files in the execution
+     * directory. Attachments are stored whatever the {@link InvokeSoap#artifactPolicy}, as they are the result of the
+     * invocation rather than a record of it.
+     *
+     * @param executionDir
+     *            directory to store the attachments in
+     * @param responseContext
+     *            response context of the invocation
+     * @param suffix
+     *            suffix of the stored attachments
+     * @throws IOException
+     *             if unable to read or store an attachment
+     */
+    void storeAttachments(final File executionDir, final Map<String, Object> responseContext, final String suffix)
+            throws IOException {
+        for (final File attachment : Attachments.store(responseContext, executionDir, suffix)) {
+            getLog().debug("Stored response attachment to `" + attachment + "`");
+        }
+    }
 
-        if (endpoint != null) {
-            requestContext.put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, endpoint);
+    /**
+     * Determines if the request and response of the next invocation are stored, whatever its outcome, according to
+     * {@link InvokeSoap#artifactPolicy}.
+     *
+     * @return true if they are stored
+     */
+    boolean storeArtifacts() {
+        switch (artifactPolicy) {
+        case ALWAYS:
+            return true;
+        case SAMPLED:
+            return (artifactCounter.getAndIncrement() % Math.max(1, artifactSampling)) == 0;
+        default:
+            return false;
         }
+    }
+
+    /**
+     * Determines if the request of a stored invocation is stored, with {@link ArtifactPolicy#ALWAYS} policy a repeated
+     * request has already been stored on the first invocation.
+     */
+    private boolean storesRequest(final boolean store, final int invocation) {
+        return store && ((invocation == 1) || (artifactPolicy != ArtifactPolicy.ALWAYS));
+    }
 
-        final Source soapResponse = dispatch.invoke(soapRequest);
+    /**
+     * Stores the request and SOAP fault of a failed invocation, if the invocation is stored or with
+     * {@link ArtifactPolicy#ON_FAULT} policy. The request has already been stored if the invocation is stored. Failures
+     * to store are added to the suppressed exceptions of the failure, so as not to hide it.
+     *
+     * @param executionDir
+     *            directory to store the XMLs in
+     * @param payload
+     *            request sent
+     * @param suffix
+     *            suffix of stored request and response XMLs
+     * @param invocation
+     *            number of the invocation
+     * @param stored
+     *            if the invocation is stored
+     * @param failure
+     *            cause of the failure
+     */
+    void storeFailure(final File executionDir, final Payload payload, final String suffix, final int invocation,
+            final boolean stored, final WebServiceException failure) {
+        final boolean onFault = artifactPolicy == ArtifactPolicy.ON_FAULT;
+        if (!stored && !onFault) {
+            return;
+        }
 
-        final Document soapResponseDocument = document();
         try {
-            transformer.transform(soapResponse, new DOMResult(soapResponseDocument));
-        } catch (final TransformerException e) {
-            throw new MojoExecutionException("Unable to transform response source XML to DOM document", e);
+            if (onFault) {
+                storeRequest(executionDir, payload, suffix);
+            }
+
+            if (failure instanceof SOAPFaultException) {
+                final File responseFile = new File(executionDir,
+                        "response" + iterationSuffix(suffix, invocation) + ".xml");
+                artifacts.write(responseFile,
+                        XmlUtil.toString(((SOAPFaultException) failure).getFault()).getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (MojoExecutionException | IOException | RuntimeException e) {
+            failure.addSuppressed(e);
         }
+    }
+
+    /**
+     * Suffix of the stored response XML, with the number of the invocation if {@link InvokeSoap#keepIterations}.
+     *
+     * @param suffix
+     *            suffix of stored request and response XMLs, empty unless in batch mode
+     * @param invocation
+     *            number of the invocation
+     * @return suffix of the response XML
+     */
+    String iterationSuffix(final String suffix, final int invocation) {
+        return keepIterations ? suffix + "-" + invocation : suffix;
+    }
 
-        final File responseFile = new File(executionDir, "response.xml");
+    /**
+     * Stores the payload as is as {@code request<suffix>.xml} and creates the SOAP request from it, see
+     * {@link Payload#store(ArtifactWriter, File)}.
+     *
+     * @param executionDir
+     *            directory to store the request XML in
+     * @param payload
+     *            request to send
+     * @param suffix
+     *            suffix of the stored request XML
+     * @return SOAP request
+     * @throws MojoExecutionException
+     *             if unable to store request XML
+     */
+    Source storeRequest(final File executionDir, final Payload payload, final String suffix)
+            throws MojoExecutionException {
+        final File requestXml = new File(executionDir, "request" + suffix + ".xml");
         try {
-            transformer.transform(new DOMSource(soapResponseDocument), new StreamResult(responseFile));
-        } catch (final TransformerException e) {
-            throw new MojoExecutionException("Unable to store request XML to file `" + requestFile + "`", e);
+            payload.store(artifacts, requestXml);
+        } catch (final IOException e) {
+            throw new MojoExecutionException(
+                    "Unable to store request XML to file `" + artifacts.target(requestXml) + "`", e);
         }
 
-        return soapResponseDocument;
+        return payload.source();
+    }
+
+    /**
+     * Stores the SOAP response as {@code response<suffix>.xml} and reads it into DOM document in the same pass, the
+     * response is written to the file as it is read. In streaming mode the document is the
+     * {@link InvokeSoap#projection} of the response, instead of the whole response, so that it is never held in memory
+     * whole.
+     *
+     * @param executionDir
+     *            directory to store the response XML in
+     * @param soapResponse
+     *            SOAP response
+     * @param suffix
+     *            suffix of the stored response XML
+     * @return SOAP response document
+     * @throws MojoExecutionException
+     *             if unable to read or store response XML
+     */
+    Document storeResponse(final File executionDir, final Source soapResponse, final String suffix)
+            throws MojoExecutionException {
+        final File responseFile = new File(executionDir, "response" + suffix + ".xml");
+        try (OutputStream stored = artifacts.open(responseFile)) {
+            final XMLStreamReader reader = StaxUtils.createXMLStreamReader(soapResponse);
+            final XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(stored, StandardCharsets.UTF_8.name());
+            final Document soapResponseDocument;
+            try {
+                final TeeStreamReader tee = new TeeStreamReader(reader, writer);
+
+                soapResponseDocument = projection != null ? projection.project(tee) : StaxUtils.read(tee);
+                tee.drain();
+            } finally {
+                StaxUtils.close(writer);
+                StaxUtils.close(reader);
+            }
+
+            return soapResponseDocument;
+        } catch (IOException | XMLStreamException e) {
+            throw new MojoExecutionException(
+                    "Unable to store response XML to file `" + artifacts.target(responseFile) + "`", e);
+        }
+    }
+
+    /**
+     * Reads the SOAP response into DOM document without storing it. In streaming mode the document is the
+     * {@link InvokeSoap#projection} of the response.
+     *
+     * @param soapResponse
+     *            SOAP response
+     * @return SOAP response document
+     * @throws MojoExecutionException
+     *             if unable to read response XML
+     */
+    Document readResponse(final Source soapResponse) throws MojoExecutionException {
+        try {
+            final XMLStreamReader reader = StaxUtils.createXMLStreamReader(soapResponse);
+            try {
+                return projection != null ? projection.project(reader) : StaxUtils.read(reader);
+            } finally {
+                StaxUtils.close(reader);
+            }
+        } catch (final XMLStreamException e) {
+            throw new MojoExecutionException("Unable to read response XML", e);
+        }
+    }
+
+    /**
+     * Creates the policy for repeating requests from the {@link InvokeSoap#repeatInterval},
+     * {@link InvokeSoap#repeatMultiplier}, {@link InvokeSoap#repeatMaxInterval}, {@link InvokeSoap#repeatJitter},
+     * {@link InvokeSoap#repeatMaxAttempts} and {@link InvokeSoap#repeatTimeout}.
+     *
+     * @return polling policy
+     * @throws MojoExecutionException
+     *             if any of the values is out of range
+     */
+    PollingPolicy pollingPolicy() throws MojoExecutionException {
+        try {
+            return new PollingPolicy(repeatInterval, repeatMultiplier, repeatMaxInterval, repeatJitter,
+                    repeatMaxAttempts, repeatTimeout);
+        } catch (final IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Identifies the endpoint and operation polled, so that polls of the same endpoint and operation from different
+     * executions can be fired together.
+     *
+     * @return key for the {@link InvokeSoap#pollingScheduler}
+     */
+    String pollingKey() {
+        return (endpoint != null ? endpoint : wsdl + " " + serviceName + " " + portName) + " " + operation;
     }
 
     /**
@@ -333,7 +1174,14 @@ public final class InvokeSoap extends AbstractMojo {
         }
 
         try {
-            return (boolean) repeatUntilExpression.evaluate(response, XPathConstants.BOOLEAN);
+            if (repeatEvaluator != null) {
+                return repeatEvaluator.evaluate(response).bool(repeatUntil);
+            }
+
+            // compiled XPath expressions are not thread safe, and in batch mode this is evaluated concurrently
+            synchronized (repeatUntilExpression) {
+                return (boolean) repeatUntilExpression.evaluate(response, XPathConstants.BOOLEAN);
+            }
         } catch (final XPathExpressionException e) {
             throw new MojoExecutionException("Unable to evaluate repeatUntil XPath expression `" + repeatUntil + "`",
                     e);
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Source;
+import javax.xml.ws.Dispatch;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Maven MOJO to generate load on a SOAP service, by sending the request for a given duration or number of times,
+ * either at a fixed rate or with fixed concurrency. The latency percentiles, throughput and errors are written to
+ * {@code load-report.txt} in the {@link AbstractInvokeSoap#requestPath}. Not tied to any Maven lifecycle phase so
+ * configure your own executions.
+ */
+@Mojo(name = "invoke-soap-load", defaultPhase = LifecyclePhase.NONE)
+public final class InvokeSoapLoad extends AbstractInvokeSoap {
+
+    /** Maximum number of requests awaiting response, with no rate given requests are sent as fast as this allows */
+    @Parameter(property = "cxf.invoke.load.concurrency", defaultValue = "1")
+    int concurrency = 1;
+
+    /** How long to send requests in seconds, 0 for no limit */
+    @Parameter(property = "cxf.invoke.load.duration", defaultValue = "10")
+    long duration = 10;
+
+    /**
+     * Requests to send per second, latency is measured from the time each request was scheduled to be sent. If 0 the
+     * requests are sent as fast as {@link InvokeSoapLoad#concurrency} allows
+     */
+    @Parameter(property = "cxf.invoke.load.rate", defaultValue = "0")
+    double rate;
+
+    /** Number of requests to send, 0 for no limit */
+    @Parameter(property = "cxf.invoke.load.requests", defaultValue = "0")
+    long requests;
+
+    /**
+     * Generates the load using the {@link AbstractInvokeSoap#requestFile} or the first element of the
+     * {@link AbstractInvokeSoap#request}, serialized once and sent asynchronously over a single {@link Dispatch}, and
+     * writes the report.
+     */
+    @Override
+    public void execute() throws MojoExecutionException {
+        serviceCache.session(session);
+
+        final Payload.Bytes payload = payload();
+
+        final File executionDir = executionDir();
+        final File requestXml = new File(executionDir, "request.xml");
+        try {
+            Files.write(requestXml.toPath(), payload.bytes());
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to store request XML to file `" + requestXml + "`", e);
+        }
+
+        final LoadGenerator.Result result;
+        final Dispatch<Source> dispatch = createDispatch();
+        try {
+            final AsyncInvoker invoker = new AsyncInvoker(dispatch, concurrency);
+            result = new LoadGenerator(invoker::invoke, concurrency, rate, TimeUnit.SECONDS.toMillis(duration),
+                    requests).run(payload);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while invoking `" + operation + "`", e);
+        } finally {
+            close(dispatch);
+        }
+
+        final File report = new File(executionDir, "load-report.txt");
+        try {
+            Files.write(report.toPath(),
+                    ("Operation: " + operation + "\n" + result.report()).getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to write load report to `" + report + "`", e);
+        }
+
+        for (final String line : result.summary().split("\\R")) {
+            getLog().info(line);
+        }
+        if (compression != null) {
+            getLog().info(compression.toString());
+        }
+        getLog().info("Load report written to `" + report + "`");
+    }
+
+    /**
+     * Reads the {@link AbstractInvokeSoap#requestFile}, or serializes the first element of the
+     * {@link AbstractInvokeSoap#request}, so that the same bytes are sent on every invocation.
+     *
+     * @return serialized payload
+     * @throws MojoExecutionException
+     *             if neither is given or the request file cannot be read
+     */
+    Payload.Bytes payload() throws MojoExecutionException {
+        final Payload payload = requestPayload();
+        if (payload instanceof Payload.Bytes) {
+            return (Payload.Bytes) payload;
+        }
+
+        try {
+            return new Payload.Bytes(Files.readAllBytes(requestFile.toPath()));
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to read request file `" + requestFile + "`", e);
+        }
+    }
+}
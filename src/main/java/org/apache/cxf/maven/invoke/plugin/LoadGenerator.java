@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.xml.transform.Source;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Sends the same request repeatedly for a given duration or number of requests, either at a fixed rate (open model) or
+ * as fast as a fixed number of concurrent requests allows (closed model), recording the latency of each request in a
+ * {@link Histogram}.
+ * <p>
+ * At a fixed rate the latency is measured from the time the request was scheduled to be sent, not from when it was
+ * actually sent. Requests delayed because the concurrency limit was reached, or the previous ones were slow, are thus
+ * accounted for with their full delay, avoiding the coordinated omission of latencies the service caused.
+ */
+final class LoadGenerator {
+
+    /**
+     * Outcome of a load run.
+     */
+    static final class Result {
+
+        final String description;
+
+        final long elapsed;
+
+        final Map<String, Long> errors;
+
+        final Histogram latency;
+
+        final long requests;
+
+        Result(final String description, final long requests, final Map<String, Long> errors, final long elapsed,
+                final Histogram latency) {
+            this.description = description;
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsed = elapsed;
+            this.latency = latency;
+        }
+
+        /**
+         * Number of failed requests.
+         *
+         * @return errors
+         */
+        long errorCount() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * Formats the result as a report with percentiles, throughput, errors and full latency distribution.
+         *
+         * @return report text
+         */
+        String report() {
+            final StringBuilder report = new StringBuilder(summary());
+
+            for (final Map.Entry<String, Long> error : errors.entrySet()) {
+                report.append("  ").append(error.getKey()).append(": ").append(error.getValue()).append('\n');
+            }
+
+            final ByteArrayOutputStream distribution = new ByteArrayOutputStream();
+            try (PrintStream out = new PrintStream(distribution, true, StandardCharsets.UTF_8.name())) {
+                latency.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            } catch (final UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+
+            report.append("\nLatency distribution (ms):\n")
+                    .append(new String(distribution.toByteArray(), StandardCharsets.UTF_8));
+
+            return report.toString();
+        }
+
+        /**
+         * Formats the main figures of the result.
+         *
+         * @return summary text, one figure per line
+         */
+        String summary() {
+            final double seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1);
+
+            return String.format(Locale.ROOT,
+                    "Mode: %s%nDuration: %.3f s%nRequests: %d%nErrors: %d%nThroughput: %.2f requests/s%n"
+                            + "Latency (ms): p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f%n",
+                    description, seconds, requests, errorCount(), seconds == 0 ? 0 : requests / seconds,
+                    percentile(50), percentile(90), percentile(99), percentile(99.9),
+                    latency.getMaxValue() / MICROS_PER_MILLI);
+        }
+
+        private double percentile(final double percentile) {
+            return latency.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+        }
+    }
+
+    /** Sends the request, returning the future response */
+    @FunctionalInterface
+    interface Sender {
+        CompletableFuture<?> send(Source request) throws InterruptedException;
+    }
+
+    /** Latencies are recorded in microseconds and reported in milliseconds */
+    static final double MICROS_PER_MILLI = 1000.0;
+
+    private final int concurrency;
+
+    private final long duration;
+
+    private final double rate;
+
+    private final long requests;
+
+    private final Sender sender;
+
+    /**
+     * Creates the load generator.
+     *
+     * @param sender
+     *            sends the requests
+     * @param concurrency
+     *            maximum number of requests in flight
+     * @param rate
+     *            requests per second, or 0 to send as fast as the concurrency allows
+     * @param duration
+     *            how long to send requests in milliseconds, or 0 for no limit
+     * @param requests
+     *            how many requests to send, or 0 for no limit
+     */
+    LoadGenerator(final Sender sender, final int concurrency, final double rate, final long duration,
+            final long requests) {
+        if ((duration <= 0) && (requests <= 0)) {
+            throw new IllegalArgumentException("Either the duration or the number of requests must be limited");
+        }
+
+        this.sender = sender;
+        this.concurrency = Math.max(1, concurrency);
+        this.rate = rate;
+        this.duration = duration;
+        this.requests = requests;
+    }
+
+    private static Throwable cause(final Throwable failure) {
+        if ((failure instanceof CompletionException) && (failure.getCause() != null)) {
+            return failure.getCause();
+        }
+
+        return failure;
+    }
+
+    /**
+     * Sends the payload until the duration elapses or the number of requests is reached, and waits for all responses.
+     *
+     * @param payload
+     *            request to send
+     * @return result of the run
+     * @throws InterruptedException
+     *             if interrupted while sending
+     */
+    Result run(final Payload payload) throws InterruptedException {
+        final Histogram latency = new ConcurrentHistogram(3);
+        final Map<String, Long> errors = new TreeMap<>();
+        final Semaphore inFlight = new Semaphore(concurrency);
+        final Phaser pending = new Phaser(1);
+
+        final long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        final long start = System.nanoTime();
+        final long deadline = duration > 0 ? start + TimeUnit.MILLISECONDS.toNanos(duration) : Long.MAX_VALUE;
+
+        long sent = 0;
+        try {
+            while ((requests <= 0) || (sent < requests)) {
+                final long intended;
+                if (interval > 0) {
+                    intended = start + (sent * interval);
+                    if (intended - deadline >= 0) {
+                        break;
+                    }
+
+                    waitUntil(intended);
+                    inFlight.acquire();
+                } else {
+                    inFlight.acquire();
+                    intended = System.nanoTime();
+                    if (intended - deadline >= 0) {
+                        inFlight.release();
+                        break;
+                    }
+                }
+
+                pending.register();
+                final CompletableFuture<?> response;
+                try {
+                    response = sender.send(payload.source());
+                } catch (final InterruptedException | RuntimeException e) {
+                    inFlight.release();
+                    pending.arriveAndDeregister();
+                    throw e;
+                }
+                sent++;
+
+                response.whenComplete((value, failure) -> {
+                    latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+
+                    if (failure != null) {
+                        synchronized (errors) {
+                            errors.merge(cause(failure).getClass().getSimpleName(), 1L, Long::sum);
+                        }
+                    }
+
+                    inFlight.release();
+                    pending.arriveAndDeregister();
+                });
+            }
+        } finally {
+            pending.arriveAndAwaitAdvance();
+        }
+
+        final long elapsed = System.nanoTime() - start;
+
+        final String description = interval > 0
+                ? String.format(Locale.ROOT, "fixed rate of %.2f requests/s, at most %d in flight", rate, concurrency)
+                : "fixed concurrency of " + concurrency;
+
+        synchronized (errors) {
+            return new Result(description, sent, new TreeMap<>(errors), elapsed, latency);
+        }
+    }
+
+    private static void waitUntil(final long time) throws InterruptedException {
+        long remaining;
+        while ((remaining = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Payload of a SOAP request, either serialized once or streamed from a file. Provides a new {@link Source} each time
+ * it is needed, as stream sources can be read only once, and the payload is stored to a file before it is sent and
+ * sent again when the request is repeated. The payload is stored as is, it is never serialized again.
+ */
+interface Payload {
+
+    /**
+     * Payload that is already serialized as UTF-8 encoded XML.
+     */
+    final class Bytes implements Payload {
+
+        private final byte[] xml;
+
+        Bytes(final byte[] xml) {
+            this.xml = xml;
+        }
+
+        /**
+         * Returns the serialized payload. The returned array must not be modified.
+         *
+         * @return serialized payload
+         */
+        byte[] bytes() {
+            return xml;
+        }
+
+        @Override
+        public Source source() {
+            return new StreamSource(new ByteArrayInputStream(xml));
+        }
+
+        /**
+         * Writes the serialized payload, in the background if the writer has a queue.
+         */
+        @Override
+        public void store(final ArtifactWriter artifacts, final File file) throws IOException {
+            artifacts.write(file, xml);
+        }
+    }
+
+    /**
+     * Payload read from a file each time it is sent, so that it is never held in memory whole.
+     */
+    final class Streamed implements Payload {
+
+        private final File file;
+
+        Streamed(final File file) {
+            this.file = file;
+        }
+
+        @Override
+        public Source source() {
+            return new StreamSource(file);
+        }
+
+        /**
+         * Copies the file to the stored file in the calling thread, as it is not held in memory.
+         */
+        @Override
+        public void store(final ArtifactWriter artifacts, final File target) throws IOException {
+            try (OutputStream stored = artifacts.open(target)) {
+                Files.copy(file.toPath(), stored);
+            }
+        }
+    }
+
+    /**
+     * Creates a new source of the payload.
+     *
+     * @return new source
+     */
+    Source source();
+
+    /**
+     * Stores the payload as is in the given file.
+     *
+     * @param artifacts
+     *            writer of the file
+     * @param file
+     *            file to write
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    void store(ArtifactWriter artifacts, File file) throws IOException;
+}
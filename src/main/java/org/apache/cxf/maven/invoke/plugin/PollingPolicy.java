@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Decides how long to wait before repeating a request and when to give up. The interval starts at the initial
+ * interval and is multiplied after each attempt up to the maximum interval, so that jobs that usually complete quickly
+ * are polled often while long running ones are not polled needlessly. Jitter spreads the intervals of concurrent
+ * pollers randomly by the given fraction. Polling gives up after the maximum number of attempts or once the deadline,
+ * measured from the start of the first attempt, is reached; the last interval is shortened so that one more attempt is
+ * made at the deadline.
+ */
+final class PollingPolicy {
+
+    /** Maximum time in milliseconds from the start of the first attempt, 0 for no limit */
+    private final long deadline;
+
+    private final long initialInterval;
+
+    /** Fraction of the interval by which it is randomly lengthened or shortened, from 0 to 1 */
+    private final double jitter;
+
+    /** Maximum number of attempts, 0 for no limit */
+    private final int maxAttempts;
+
+    /** Upper bound of the interval, 0 for no bound */
+    private final long maxInterval;
+
+    private final double multiplier;
+
+    /** Source of random numbers between 0 and 1 for the jitter */
+    private final DoubleSupplier random;
+
+    /**
+     * Creates the policy.
+     *
+     * @param initialInterval
+     *            milliseconds to wait after the first attempt
+     * @param multiplier
+     *            factor by which the interval grows after each attempt, 1 for fixed interval
+     * @param maxInterval
+     *            maximum interval in milliseconds, 0 for no bound
+     * @param jitter
+     *            fraction of the interval by which it is randomly lengthened or shortened, 0 for none
+     * @param maxAttempts
+     *            maximum number of attempts, 0 for no limit
+     * @param deadline
+     *            maximum time in milliseconds from the start of the first attempt, 0 for no limit
+     * @throws IllegalArgumentException
+     *             if any of the values is out of range
+     */
+    PollingPolicy(final long initialInterval, final double multiplier, final long maxInterval, final double jitter,
+            final int maxAttempts, final long deadline) {
+        this(initialInterval, multiplier, maxInterval, jitter, maxAttempts, deadline, PollingPolicy::random);
+    }
+
+    PollingPolicy(final long initialInterval, final double multiplier, final long maxInterval, final double jitter,
+            final int maxAttempts, final long deadline, final DoubleSupplier random) {
+        if ((initialInterval < 0) || (maxInterval < 0) || (maxAttempts < 0) || (deadline < 0)) {
+            throw new IllegalArgumentException("Polling intervals, attempts and deadline must not be negative");
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("Polling interval multiplier must be at least 1, given " + multiplier);
+        }
+        if ((jitter < 0) || (jitter > 1)) {
+            throw new IllegalArgumentException("Polling jitter must be between 0 and 1, given " + jitter);
+        }
+
+        this.initialInterval = initialInterval;
+        this.multiplier = multiplier;
+        this.maxInterval = maxInterval;
+        this.jitter = jitter;
+        this.maxAttempts = maxAttempts;
+        this.deadline = deadline;
+        this.random = random;
+    }
+
+    private static double random() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+
+    /**
+     * Interval before the next attempt, without jitter and deadline.
+     *
+     * @param attempts
+     *            number of attempts made so far, at least 1
+     * @return interval in milliseconds
+     */
+    long interval(final int attempts) {
+        final double interval = initialInterval * Math.pow(multiplier, attempts - 1);
+
+        return (maxInterval > 0) && (interval > maxInterval) ? maxInterval : (long) Math.min(interval, Long.MAX_VALUE);
+    }
+
+    /**
+     * Determines how long to wait before the next attempt.
+     *
+     * @param attempts
+     *            number of attempts made so far, at least 1
+     * @param elapsed
+     *            milliseconds since the start of the first attempt
+     * @param what
+     *            what is being repeated, for the failure message
+     * @return milliseconds to wait
+     * @throws MojoExecutionException
+     *             if the maximum number of attempts or the deadline has been reached
+     */
+    long delay(final int attempts, final long elapsed, final String what) throws MojoExecutionException {
+        if ((maxAttempts > 0) && (attempts >= maxAttempts)) {
+            throw new MojoExecutionException("Gave up repeating " + what + " after reaching the maximum of "
+                    + maxAttempts + " attempts in " + elapsed + " ms");
+        }
+
+        if ((deadline > 0) && (elapsed >= deadline)) {
+            throw new MojoExecutionException("Gave up repeating " + what + " after " + attempts
+                    + " attempts as the deadline of " + deadline + " ms was reached");
+        }
+
+        final long interval = interval(attempts);
+        long delay = jitter > 0 ? Math.round(interval * (1 + (jitter * ((2 * random.getAsDouble()) - 1)))) : interval;
+        if ((maxInterval > 0) && (delay > maxInterval)) {
+            delay = maxInterval;
+        }
+
+        return deadline > 0 ? Math.min(delay, deadline - elapsed) : delay;
+    }
+}
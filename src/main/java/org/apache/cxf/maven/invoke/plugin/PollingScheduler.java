@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.codehaus.plexus.component.annotations.Component;
+
+/**
+ * Schedules the repeated polls of {@code repeatUntil} for all executions of the plugin within the Maven session, so
+ * that waiting polls are held by a single timer thread instead of a sleeping thread each. Only asynchronous
+ * executions release their threads while waiting, synchronous ones still block the invoking thread until the poll is
+ * due. Polls of the same endpoint and operation that are due within the coalescing window of each other are fired
+ * together, by a single wakeup, so that they reuse the connections to the endpoint instead of trickling in one by one.
+ * <p>
+ * Polls are run by a pool of threads that exist only while there are polls to run, the timer never runs them itself
+ * so a slow or blocking poll does not delay the others.
+ */
+@Component(role = PollingScheduler.class)
+public final class PollingScheduler {
+
+    /**
+     * Polls of the same key that are fired together.
+     */
+    private static final class Tick {
+
+        final List<Runnable> actions = new ArrayList<>();
+
+        /** {@link System#nanoTime()} at which the polls are due */
+        final long due;
+
+        Tick(final long due) {
+            this.due = due;
+        }
+    }
+
+    /** Polls due within this many milliseconds of each other are fired together */
+    static final long DEFAULT_COALESCING_WINDOW = 100;
+
+    /** How long idle threads are kept, in seconds */
+    private static final long KEEP_ALIVE = 10;
+
+    /** Ticks not yet fired by key, guarded by {@code this} */
+    private final Map<String, Tick> pending = new HashMap<>();
+
+    private final AtomicLong polls = new AtomicLong();
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final AtomicLong wakeups = new AtomicLong();
+
+    private final long window;
+
+    private final ExecutorService workers;
+
+    /**
+     * Creates the scheduler with the {@link PollingScheduler#DEFAULT_COALESCING_WINDOW}.
+     */
+    public PollingScheduler() {
+        this(DEFAULT_COALESCING_WINDOW);
+    }
+
+    /**
+     * Creates the scheduler.
+     *
+     * @param window
+     *            polls of the same key due within this many milliseconds of each other are fired together
+     */
+    PollingScheduler(final long window) {
+        this.window = TimeUnit.MILLISECONDS.toNanos(window);
+
+        timer = new ScheduledThreadPoolExecutor(1, threads("cxf-invoke-polling-timer"));
+        timer.setKeepAliveTime(KEEP_ALIVE, TimeUnit.SECONDS);
+        timer.allowCoreThreadTimeOut(true);
+
+        workers = Executors.newCachedThreadPool(threads("cxf-invoke-polling"));
+    }
+
+    private static ThreadFactory threads(final String name) {
+        final AtomicInteger created = new AtomicInteger();
+
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + created.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        };
+    }
+
+    /**
+     * Returns a future that is completed after the given delay, by one of the polling threads. The delay may be
+     * shortened or lengthened by up to the coalescing window to fire together with other polls of the same key.
+     *
+     * @param key
+     *            identifies the endpoint and operation polled
+     * @param delay
+     *            delay in milliseconds
+     * @return future completed after the delay
+     */
+    CompletableFuture<Void> after(final String key, final long delay) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        final Runnable action = () -> future.complete(null);
+
+        polls.incrementAndGet();
+
+        final long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        synchronized (this) {
+            final Tick joined = pending.get(key);
+            if ((joined != null) && (Math.abs(joined.due - due) <= window)) {
+                joined.actions.add(action);
+
+                return future;
+            }
+
+            final Tick tick = new Tick(due);
+            tick.actions.add(action);
+            pending.put(key, tick);
+
+            timer.schedule(() -> fire(key, tick), due - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        return future;
+    }
+
+    private void fire(final String key, final Tick tick) {
+        final List<Runnable> actions;
+        synchronized (this) {
+            pending.remove(key, tick);
+            actions = new ArrayList<>(tick.actions);
+        }
+
+        wakeups.incrementAndGet();
+        actions.forEach(workers::execute);
+    }
+
+    /**
+     * Number of polls scheduled.
+     *
+     * @return number of polls
+     */
+    long polls() {
+        return polls.get();
+    }
+
+    /**
+     * Runs the given asynchronous action after the given delay, see {@link PollingScheduler#after(String, long)}.
+     *
+     * @param key
+     *            identifies the endpoint and operation polled
+     * @param delay
+     *            delay in milliseconds
+     * @param action
+     *            action to run, in one of the polling threads
+     * @return future completed with the result of the action
+     */
+    <T> CompletableFuture<T> schedule(final String key, final long delay,
+            final Supplier<CompletableFuture<T>> action) {
+        return after(key, delay).thenComposeAsync(ignored -> action.get(), workers);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Polling scheduler: %d poll(s) in %d wakeup(s)", polls(), wakeups());
+    }
+
+    /**
+     * Number of times the timer fired polls, polls fired together are counted once.
+     *
+     * @return number of wakeups
+     */
+    long wakeups() {
+        return wakeups.get();
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * SOAP request template with {@code #{name}} placeholders in text content and attribute values, that are replaced by
+ * values of a data row. The template is compiled once into UTF-8 encoded static chunks and variable slots between
+ * them, so creating a request is a matter of concatenating bytes, without building or parsing any XML.
+ */
+final class RequestTemplate {
+
+    /** Marks the start of a slot in CDATA section, slot markers are characters from Unicode private use area */
+    private static final char CDATA_SLOT = '\uE001';
+
+    /** Marks the end of a slot */
+    private static final char SLOT_END = '\uE002';
+
+    /** Marks the start of a slot in text content or attribute value */
+    private static final char TEXT_SLOT = '\uE000';
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("#\\{([^}]+)\\}");
+
+    private static final Pattern SLOT = Pattern.compile("([" + TEXT_SLOT + CDATA_SLOT + "])(\\d+)" + SLOT_END);
+
+    /** Whether the value of the slot is placed in a CDATA section and must not be escaped */
+    private final boolean[] cdata;
+
+    /** Static parts of the template, one more than there are slots */
+    private final byte[][] chunks;
+
+    /** Variable name of each slot */
+    private final String[] slots;
+
+    /**
+     * Compiles the given request into a template.
+     *
+     * @param template
+     *            request containing placeholders
+     * @throws IllegalArgumentException
+     *             if the request cannot be serialized
+     */
+    RequestTemplate(final Node template) {
+        final List<String> names = new ArrayList<>();
+
+        final Document document = XmlUtil.document();
+        final Node marked = document.importNode(template, true);
+        document.appendChild(marked);
+        mark(marked, names);
+
+        final String serialized = serialize(document);
+
+        final List<byte[]> chunkList = new ArrayList<>();
+        final List<Boolean> cdataList = new ArrayList<>();
+        final List<String> slotList = new ArrayList<>();
+
+        final Matcher matcher = SLOT.matcher(serialized);
+        int last = 0;
+        while (matcher.find()) {
+            chunkList.add(serialized.substring(last, matcher.start()).getBytes(StandardCharsets.UTF_8));
+            cdataList.add(matcher.group(1).charAt(0) == CDATA_SLOT);
+            slotList.add(names.get(Integer.parseInt(matcher.group(2))));
+            last = matcher.end();
+        }
+        chunkList.add(serialized.substring(last).getBytes(StandardCharsets.UTF_8));
+
+        chunks = chunkList.toArray(new byte[chunkList.size()][]);
+        slots = slotList.toArray(new String[slotList.size()]);
+        cdata = new boolean[cdataList.size()];
+        for (int i = 0; i < cdata.length; i++) {
+            cdata[i] = cdataList.get(i);
+        }
+    }
+
+    /**
+     * Replaces placeholders in the given text with slot markers, recording the variable names.
+     */
+    private static String mark(final String text, final List<String> names, final char slotType) {
+        if (text.indexOf("#{") < 0) {
+            return text;
+        }
+
+        final Matcher matcher = PLACEHOLDER.matcher(text);
+        final StringBuffer marked = new StringBuffer(text.length());
+        while (matcher.find()) {
+            matcher.appendReplacement(marked, slotType + String.valueOf(names.size()) + SLOT_END);
+            names.add(matcher.group(1));
+        }
+        matcher.appendTail(marked);
+
+        return marked.toString();
+    }
+
+    private static void mark(final Node node, final List<String> names) {
+        switch (node.getNodeType()) {
+        case Node.TEXT_NODE:
+        case Node.ATTRIBUTE_NODE:
+            node.setNodeValue(mark(node.getNodeValue(), names, TEXT_SLOT));
+            return;
+        case Node.CDATA_SECTION_NODE:
+            node.setNodeValue(mark(node.getNodeValue(), names, CDATA_SLOT));
+            return;
+        default:
+            break;
+        }
+
+        final NamedNodeMap attributes = node.getAttributes();
+        if (attributes != null) {
+            for (int i = 0; i < attributes.getLength(); i++) {
+                mark(attributes.item(i), names);
+            }
+        }
+
+        final NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            mark(children.item(i), names);
+        }
+    }
+
+    private static String serialize(final Document document) {
+        final Transformer transformer = XmlUtil.transformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        transformer.setOutputProperty(OutputKeys.ENCODING, StandardCharsets.UTF_8.name());
+
+        final StringWriter writer = new StringWriter();
+        try {
+            transformer.transform(new DOMSource(document), new StreamResult(writer));
+        } catch (final TransformerException e) {
+            throw new IllegalArgumentException("Unable to compile request template", e);
+        }
+
+        return writer.toString();
+    }
+
+    /**
+     * Creates a new request from the template using the values of the row, {@code null} values are replaced with
+     * empty string.
+     *
+     * @param row
+     *            values by name
+     * @return new request
+     * @throws IllegalArgumentException
+     *             if the row has no value named by a placeholder
+     */
+    Payload apply(final Map<String, String> row) {
+        final byte[][] values = new byte[slots.length][];
+
+        int length = 0;
+        for (int i = 0; i < slots.length; i++) {
+            if (!row.containsKey(slots[i])) {
+                throw new IllegalArgumentException("No value named `" + slots[i] + "` in " + row.keySet());
+            }
+
+            final String value = row.get(slots[i]) == null ? "" : row.get(slots[i]);
+            final String encoded = cdata[i] ? value.replace("]]>", "]]]]><![CDATA[>") : XmlUtil.escape(value);
+
+            values[i] = encoded.getBytes(StandardCharsets.UTF_8);
+            length += chunks[i].length + values[i].length;
+        }
+        length += chunks[slots.length].length;
+
+        final byte[] xml = new byte[length];
+        int position = 0;
+        for (int i = 0; i < slots.length; i++) {
+            System.arraycopy(chunks[i], 0, xml, position, chunks[i].length);
+            position += chunks[i].length;
+            System.arraycopy(values[i], 0, xml, position, values[i].length);
+            position += values[i].length;
+        }
+        System.arraycopy(chunks[slots.length], 0, xml, position, chunks[slots.length].length);
+
+        return new Payload.Bytes(xml);
+    }
+
+    /**
+     * Names of the variables used in the template.
+     *
+     * @return variable names in order of appearance
+     */
+    Set<String> variables() {
+        final Set<String> variables = new LinkedHashSet<>();
+        Collections.addAll(variables, slots);
+
+        return variables;
+    }
+}
@@ -0,0 +1,394 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Evaluates a set of XPath expressions on a response in a single traversal of it. The location paths of all
+ * expressions supported by {@link ResponseProjection} are combined into one matcher, a lazily built deterministic
+ * automaton whose states are the sets of path steps still to be matched. Each element costs a lookup of the
+ * transition by its name, and by its attribute values if there are attribute predicates, regardless of the number of
+ * expressions. The traversal skips subtrees no path can match and stops once every expression has its value. Other
+ * expressions are evaluated using XPath.
+ */
+final class ResponseEvaluator {
+
+    /**
+     * Values of the expressions for one response.
+     */
+    final class Result {
+
+        /** If the path selected any node, or for comparisons, if the comparison is true */
+        private final boolean[] found;
+
+        private final Node response;
+
+        /** String value of the first node selected by the path */
+        private final String[] values;
+
+        Result(final Node response) {
+            this.response = response;
+            found = new boolean[paths.length];
+            values = new String[paths.length];
+        }
+
+        /**
+         * Value of the expression converted to boolean, as with {@link XPathConstants#BOOLEAN}.
+         *
+         * @param expression
+         *            XPath expression
+         * @return boolean value
+         * @throws XPathExpressionException
+         *             if the expression is not supported and cannot be evaluated using XPath
+         */
+        boolean bool(final String expression) throws XPathExpressionException {
+            final Integer index = indexes.get(expression);
+            if (index == null) {
+                return (boolean) xpathCache.evaluate(expression, response, XPathConstants.BOOLEAN);
+            }
+
+            return found[index];
+        }
+
+        /**
+         * Value of the expression converted to string, as with {@link XPathConstants#STRING}.
+         *
+         * @param expression
+         *            XPath expression
+         * @return string value
+         * @throws XPathExpressionException
+         *             if the expression is not supported and cannot be evaluated using XPath
+         */
+        String string(final String expression) throws XPathExpressionException {
+            final Integer index = indexes.get(expression);
+            if (index == null) {
+                return (String) xpathCache.evaluate(expression, response, XPathConstants.STRING);
+            }
+
+            if (paths[index].literal != null) {
+                return String.valueOf(found[index]);
+            }
+
+            return found[index] ? values[index] : "";
+        }
+
+        /**
+         * Records the element selected by the steps of the path, returns true if the path now has its value.
+         */
+        private boolean select(final int index, final Element element) {
+            final ResponseProjection.Path path = paths[index];
+
+            if (path.attribute != null) {
+                final Attr attribute = element.getAttributeNodeNS(null, path.attribute);
+
+                return (attribute != null) && value(index, attribute.getValue());
+            }
+
+            if (path.text) {
+                Node child = element.getFirstChild();
+                while (child != null) {
+                    if (!isText(child)) {
+                        child = child.getNextSibling();
+                        continue;
+                    }
+
+                    // adjacent text and CDATA nodes form a single text node in the XPath data model
+                    final StringBuilder text = new StringBuilder(child.getNodeValue());
+                    child = child.getNextSibling();
+                    while ((child != null) && isText(child)) {
+                        text.append(child.getNodeValue());
+                        child = child.getNextSibling();
+                    }
+
+                    if (value(index, text.toString())) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+
+            return value(index, element.getTextContent());
+        }
+
+        private boolean value(final int index, final String value) {
+            final ResponseProjection.Path path = paths[index];
+            if (path.literal == null) {
+                values[index] = value;
+                found[index] = true;
+            } else {
+                found[index] = path.literal.equals(value) != path.notEqual;
+            }
+
+            return found[index];
+        }
+
+        /**
+         * Visits the element children of the given node, returns true once all paths have their values.
+         */
+        private boolean visit(final Node parent, final State state, final int[] remaining) {
+            for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() != Node.ELEMENT_NODE) {
+                    continue;
+                }
+
+                final Transition transition = state.transition((Element) child);
+                for (final int index : transition.selected) {
+                    if (!found[index] && select(index, (Element) child) && (--remaining[0] == 0)) {
+                        return true;
+                    }
+                }
+
+                if (!transition.target.isEmpty() && visit(child, transition.target, remaining)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Set of steps still to be matched by the elements below an element, identified by
+     * {@link ResponseEvaluator#stepIds}.
+     */
+    private final class State {
+
+        private final int[] steps;
+
+        /** Transitions by element name, built as elements with new names are encountered */
+        private final ConcurrentMap<String, Transition> transitions = new ConcurrentHashMap<>();
+
+        State(final BitSet steps) {
+            this.steps = steps.stream().toArray();
+        }
+
+        boolean isEmpty() {
+            return steps.length == 0;
+        }
+
+        Transition transition(final Element element) {
+            final String namespace = element.getNamespaceURI() == null ? "" : element.getNamespaceURI();
+            final String localName = element.getLocalName() == null ? element.getNodeName() : element.getLocalName();
+
+            // element names cannot contain braces, so this tells apart names in a namespace from names in none
+            final String name = namespace.isEmpty() ? localName : "{}" + localName;
+
+            Transition transition = transitions.get(name);
+            if (transition == null) {
+                transition = transition(name, namespace, localName, null);
+            }
+
+            if (transition.predicates.isEmpty()) {
+                return transition;
+            }
+
+            // steps with attribute predicates are looked up by the attribute values of the element
+            BitSet passed = null;
+            for (final Map.Entry<String, Map<String, BitSet>> predicate : transition.predicates.entrySet()) {
+                final Attr attribute = element.getAttributeNodeNS(null, predicate.getKey());
+                final BitSet ids = attribute == null ? null : predicate.getValue().get(attribute.getValue());
+                if (ids != null) {
+                    if (passed == null) {
+                        passed = new BitSet();
+                    }
+                    passed.or(ids);
+                }
+            }
+
+            if (passed == null) {
+                return transition;
+            }
+
+            final String key = name + passed;
+            final Transition existing = transitions.get(key);
+
+            return existing != null ? existing : transition(key, namespace, localName, passed);
+        }
+
+        /**
+         * Creates the transition for elements with the given name, where the steps with attribute predicates in the
+         * passed set match, or if no set is given, where none of them match.
+         */
+        private Transition transition(final String key, final String namespace, final String localName,
+                final BitSet passed) {
+            final BitSet next = new BitSet();
+            final List<Integer> selected = new ArrayList<>();
+            final Map<String, Map<String, BitSet>> predicates = new HashMap<>();
+            for (final int id : steps) {
+                final ResponseProjection.Path path = paths[pathOfStep[id]];
+                final int step = id - stepIds[pathOfStep[id]];
+                final ResponseProjection.Step current = path.steps[step];
+                if (current.descendant) {
+                    next.set(id);
+                }
+
+                if (!current.test(namespace, localName)) {
+                    continue;
+                }
+
+                if (current.attribute != null) {
+                    if (passed == null) {
+                        predicates.computeIfAbsent(current.attribute, a -> new HashMap<>())
+                                .computeIfAbsent(current.attributeValue, v -> new BitSet()).set(id);
+                        continue;
+                    }
+
+                    if (!passed.get(id)) {
+                        continue;
+                    }
+                }
+
+                if (step == (path.steps.length - 1)) {
+                    selected.add(pathOfStep[id]);
+                } else {
+                    next.set(id + 1);
+                }
+            }
+
+            final Transition created = new Transition(states.computeIfAbsent(next, State::new),
+                    selected.stream().mapToInt(Integer::intValue).toArray(), predicates);
+            final Transition existing = transitions.putIfAbsent(key, created);
+
+            return existing != null ? existing : created;
+        }
+    }
+
+    /**
+     * Reached state and the paths selecting the element.
+     */
+    private static final class Transition {
+
+        /** Steps with attribute predicates the element name matches, by attribute name and required value */
+        final Map<String, Map<String, BitSet>> predicates;
+
+        final int[] selected;
+
+        final State target;
+
+        Transition(final State target, final int[] selected, final Map<String, Map<String, BitSet>> predicates) {
+            this.target = target;
+            this.selected = selected;
+            this.predicates = predicates;
+        }
+    }
+
+    /** Index of the path of each supported expression */
+    private final Map<String, Integer> indexes = new LinkedHashMap<>();
+
+    private final State initial;
+
+    /** Path each step id belongs to */
+    private final int[] pathOfStep;
+
+    private final ResponseProjection.Path[] paths;
+
+    /** States of the automaton built so far, by the steps they are made of */
+    private final ConcurrentMap<BitSet, State> states = new ConcurrentHashMap<>();
+
+    /** Id of the first step of each path, the steps of a path have consecutive ids */
+    private final int[] stepIds;
+
+    /** Evaluates the expressions not supported by the matcher */
+    private final XPathCache xpathCache;
+
+    /**
+     * Compiles the given expressions into a matcher.
+     *
+     * @param expressions
+     *            XPath expressions to evaluate
+     * @param xpathCache
+     *            cache used to evaluate the expressions the matcher does not support
+     */
+    ResponseEvaluator(final Collection<String> expressions, final XPathCache xpathCache) {
+        this.xpathCache = xpathCache;
+
+        final List<ResponseProjection.Path> compiled = new ArrayList<>();
+        for (final String expression : expressions) {
+            if (indexes.containsKey(expression)) {
+                continue;
+            }
+
+            final ResponseProjection.Path path = ResponseProjection.compile(expression);
+            if (path != null) {
+                indexes.put(expression, compiled.size());
+                compiled.add(path);
+            }
+        }
+
+        paths = compiled.toArray(new ResponseProjection.Path[compiled.size()]);
+
+        stepIds = new int[paths.length];
+        int stepCount = 0;
+        for (int i = 0; i < paths.length; i++) {
+            stepIds[i] = stepCount;
+            stepCount += paths[i].steps.length;
+        }
+
+        pathOfStep = new int[stepCount];
+        final BitSet first = new BitSet();
+        for (int i = 0; i < paths.length; i++) {
+            first.set(stepIds[i]);
+            for (int j = 0; j < paths[i].steps.length; j++) {
+                pathOfStep[stepIds[i] + j] = i;
+            }
+        }
+
+        initial = states.computeIfAbsent(first, State::new);
+    }
+
+    private static boolean isText(final Node node) {
+        return (node.getNodeType() == Node.TEXT_NODE) || (node.getNodeType() == Node.CDATA_SECTION_NODE);
+    }
+
+    /**
+     * Evaluates the expressions on the given response in a single traversal.
+     *
+     * @param response
+     *            response document, or any node of it
+     * @return values of the expressions
+     */
+    Result evaluate(final Node response) {
+        final Result result = new Result(response);
+
+        final int[] remaining = {paths.length};
+        if (remaining[0] > 0) {
+            result.visit(response instanceof Document ? response : response.getOwnerDocument(), initial, remaining);
+        }
+
+        return result;
+    }
+}
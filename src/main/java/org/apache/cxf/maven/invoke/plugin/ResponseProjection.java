@@ -0,0 +1,505 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Projection of a SOAP response to the parts needed to evaluate a set of XPath expressions, built in a single pass
+ * over a StAX stream. Only the elements the expressions select, with their content, and the chain of ancestors of
+ * those elements, with their attributes, are kept in the DOM document, so evaluating the expressions on the
+ * projection gives the same result as on the whole response without holding the whole response in memory.
+ * <p>
+ * Supported are location paths of child ({@code /}) and descendant ({@code //}) steps testing the element name, any
+ * element ({@code *}), {@code [local-name() = 'name']} or {@code [@attribute = 'value']}, optionally ending with
+ * {@code @attribute} or {@code text()}, and such a path compared with {@code =} or {@code !=} to a string literal.
+ * For example {@code //*[local-name() = 'status']}, {@code //item[@id = '1']/name} or
+ * {@code /response/item/@id != 'done'}. Other expressions are reported by {@link ResponseProjection#unsupported()} and
+ * need the whole response.
+ */
+final class ResponseProjection {
+
+    /**
+     * Compiled location path.
+     */
+    static final class Path {
+
+        /** If the expression is a comparison every selected node is needed, otherwise only the first one */
+        final boolean all;
+
+        /** Name of the selected attribute, if the path selects an attribute */
+        final String attribute;
+
+        /** String the selected nodes are compared with, or {@code null} if the expression is not a comparison */
+        final String literal;
+
+        /** If the comparison is {@code !=} */
+        final boolean notEqual;
+
+        final Step[] steps;
+
+        /** If the path selects text nodes of the elements */
+        final boolean text;
+
+        Path(final Step[] steps, final String attribute, final boolean text, final String literal,
+                final boolean notEqual) {
+            this.steps = steps;
+            this.attribute = attribute;
+            this.text = text;
+            this.literal = literal;
+            this.notEqual = notEqual;
+            all = literal != null;
+        }
+
+        /**
+         * Determines if the element on top of the stack is selected by the steps of this path.
+         */
+        boolean matches(final List<Frame> stack) {
+            return matches(0, 0, stack);
+        }
+
+        private boolean matches(final int step, final int from, final List<Frame> stack) {
+            if (step == steps.length) {
+                return from == stack.size();
+            }
+
+            final Step current = steps[step];
+            final int last = current.descendant ? stack.size() - 1 : Math.min(from, stack.size() - 1);
+            for (int i = from; i <= last; i++) {
+                if (current.test(stack.get(i)) && matches(step + 1, i + 1, stack)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Step of a location path.
+     */
+    static final class Step {
+
+        /** Name of the attribute from the {@code @attribute = 'value'} predicate, or {@code null} */
+        final String attribute;
+
+        /** Required value of the {@link Step#attribute} */
+        final String attributeValue;
+
+        /** If the step is on the descendant axis, otherwise on the child axis */
+        final boolean descendant;
+
+        /** Required local name from the {@code local-name()} predicate, or {@code null} */
+        final String localName;
+
+        /** Name of elements in no namespace, or {@code null} for any element */
+        final String name;
+
+        Step(final boolean descendant, final String name, final String localName, final String attribute,
+                final String attributeValue) {
+            this.descendant = descendant;
+            this.name = name;
+            this.localName = localName;
+            this.attribute = attribute;
+            this.attributeValue = attributeValue;
+        }
+
+        boolean test(final Frame frame) {
+            return test(frame.namespace, frame.localName)
+                    && ((attribute == null) || attributeValue.equals(frame.attribute(attribute)));
+        }
+
+        /**
+         * Determines if the element with the given namespace, empty if none, and local name is selected by this step,
+         * not considering the {@link Step#attribute} predicate.
+         */
+        boolean test(final String elementNamespace, final String elementLocalName) {
+            return ((name == null) || (elementNamespace.isEmpty() && name.equals(elementLocalName)))
+                    && ((localName == null) || localName.equals(elementLocalName));
+        }
+    }
+
+    /**
+     * Element being read, materialized in the projection only if needed.
+     */
+    static final class Frame {
+
+        final String[] attributes;
+
+        Element element;
+
+        final String localName;
+
+        final String namespace;
+
+        final String[] namespaces;
+
+        /** Paths selecting the text of this element, satisfied if the element has any text */
+        List<Path> pendingText;
+
+        final String prefix;
+
+        /** If the element has any text node children */
+        boolean text;
+
+        Frame(final XMLStreamReader reader) {
+            namespace = valueOf(reader.getNamespaceURI());
+            localName = reader.getLocalName();
+            prefix = valueOf(reader.getPrefix());
+
+            attributes = new String[reader.getAttributeCount() * 4];
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                attributes[i * 4] = valueOf(reader.getAttributeNamespace(i));
+                attributes[(i * 4) + 1] = valueOf(reader.getAttributePrefix(i));
+                attributes[(i * 4) + 2] = reader.getAttributeLocalName(i);
+                attributes[(i * 4) + 3] = reader.getAttributeValue(i);
+            }
+
+            namespaces = new String[reader.getNamespaceCount() * 2];
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                namespaces[i * 2] = valueOf(reader.getNamespacePrefix(i));
+                namespaces[(i * 2) + 1] = valueOf(reader.getNamespaceURI(i));
+            }
+        }
+
+        /**
+         * Value of the attribute in no namespace with the given name, or {@code null} if the element has none.
+         */
+        String attribute(final String name) {
+            for (int i = 0; i < attributes.length; i += 4) {
+                if (attributes[i].isEmpty() && name.equals(attributes[i + 2])) {
+                    return attributes[i + 3];
+                }
+            }
+
+            return null;
+        }
+
+        boolean hasAttribute(final String name) {
+            return attribute(name) != null;
+        }
+
+        Element materialize(final Document document, final Node parent) {
+            element = document.createElementNS(emptyToNull(namespace), qualified(prefix, localName));
+
+            for (int i = 0; i < namespaces.length; i += 2) {
+                element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                        namespaces[i].isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE
+                                : qualified(XMLConstants.XMLNS_ATTRIBUTE, namespaces[i]),
+                        namespaces[i + 1]);
+            }
+
+            for (int i = 0; i < attributes.length; i += 4) {
+                element.setAttributeNS(emptyToNull(attributes[i]), qualified(attributes[i + 1], attributes[i + 2]),
+                        attributes[i + 3]);
+            }
+
+            parent.appendChild(element);
+
+            return element;
+        }
+    }
+
+    private static final Pattern ATTRIBUTE = Pattern.compile("@([A-Za-z_][\\w.\\-]*)");
+
+    private static final Pattern ATTRIBUTE_PREDICATE = Pattern
+            .compile("\\s*\\[\\s*@([A-Za-z_][\\w.\\-]*)\\s*=\\s*(?:'([^']*)'|\"([^\"]*)\")\\s*\\]");
+
+    private static final Pattern COMPARISON = Pattern.compile("\\s*(!=|=)\\s*(?:'([^']*)'|\"([^\"]*)\")\\s*");
+
+    private static final Pattern NAME = Pattern.compile("\\*|[A-Za-z_][\\w.\\-]*");
+
+    private static final Pattern PREDICATE = Pattern
+            .compile("\\s*\\[\\s*local-name\\(\\s*\\)\\s*=\\s*(?:'([^']*)'|\"([^\"]*)\")\\s*\\]");
+
+    private static final Pattern TEXT = Pattern.compile("text\\(\\s*\\)");
+
+    private final Path[] paths;
+
+    private final List<String> unsupported;
+
+    /**
+     * Compiles the given expressions.
+     *
+     * @param expressions
+     *            XPath expressions to be evaluated on the projection
+     */
+    ResponseProjection(final Collection<String> expressions) {
+        final List<Path> compiled = new ArrayList<>(expressions.size());
+        final List<String> notCompiled = new ArrayList<>();
+        for (final String expression : expressions) {
+            final Path path = compile(expression);
+            if (path == null) {
+                notCompiled.add(expression);
+            } else {
+                compiled.add(path);
+            }
+        }
+
+        paths = compiled.toArray(new Path[compiled.size()]);
+        unsupported = Collections.unmodifiableList(notCompiled);
+    }
+
+    /**
+     * Compiles the supported subset of XPath.
+     *
+     * @return compiled path or {@code null} if the expression is not supported
+     */
+    static Path compile(final String expression) {
+        final String trimmed = expression.trim();
+        final Matcher matcher = NAME.matcher(trimmed);
+
+        final List<Step> steps = new ArrayList<>();
+        String attribute = null;
+        boolean text = false;
+
+        int position = 0;
+        boolean descendant = false;
+        if (trimmed.startsWith("//")) {
+            descendant = true;
+            position = 2;
+        } else if (trimmed.startsWith("/")) {
+            position = 1;
+        }
+
+        while (true) {
+            if (matcher.usePattern(ATTRIBUTE).region(position, trimmed.length()).lookingAt()) {
+                if (descendant) {
+                    return null;
+                }
+                attribute = matcher.group(1);
+                position = matcher.end();
+                break;
+            }
+
+            if (matcher.usePattern(TEXT).region(position, trimmed.length()).lookingAt()) {
+                if (descendant) {
+                    return null;
+                }
+                text = true;
+                position = matcher.end();
+                break;
+            }
+
+            if (!matcher.usePattern(NAME).region(position, trimmed.length()).lookingAt()) {
+                return null;
+            }
+            final String name = "*".equals(matcher.group()) ? null : matcher.group();
+            position = matcher.end();
+
+            String localName = null;
+            String predicateAttribute = null;
+            String predicateValue = null;
+            while (true) {
+                if ((localName == null)
+                        && matcher.usePattern(PREDICATE).region(position, trimmed.length()).lookingAt()) {
+                    localName = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+                } else if ((predicateAttribute == null)
+                        && matcher.usePattern(ATTRIBUTE_PREDICATE).region(position, trimmed.length()).lookingAt()) {
+                    predicateAttribute = matcher.group(1);
+                    predicateValue = matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+                } else {
+                    break;
+                }
+                position = matcher.end();
+            }
+
+            steps.add(new Step(descendant, name, localName, predicateAttribute, predicateValue));
+
+            if (trimmed.startsWith("//", position)) {
+                descendant = true;
+                position += 2;
+            } else if (trimmed.startsWith("/", position)) {
+                descendant = false;
+                position++;
+            } else {
+                break;
+            }
+        }
+
+        if (steps.isEmpty()) {
+            return null;
+        }
+
+        String literal = null;
+        boolean notEqual = false;
+        if (position < trimmed.length()) {
+            if (!matcher.usePattern(COMPARISON).region(position, trimmed.length()).matches()) {
+                return null;
+            }
+
+            notEqual = "!=".equals(matcher.group(1));
+            literal = matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+        }
+
+        return new Path(steps.toArray(new Step[steps.size()]), attribute, text, literal, notEqual);
+    }
+
+    private static String emptyToNull(final String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void materialize(final Document document, final List<Frame> stack) {
+        for (int i = 0; i < stack.size(); i++) {
+            final Frame frame = stack.get(i);
+            if (frame.element == null) {
+                frame.materialize(document, i == 0 ? document : stack.get(i - 1).element);
+            }
+        }
+    }
+
+    private static String qualified(final String prefix, final String localName) {
+        return (prefix == null) || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static String valueOf(final String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Reads the XML from the given reader and builds the projection. Reading stops as soon as the first node selected
+     * by each of the paths has been read, unless there are comparisons, which need all selected nodes.
+     *
+     * @param reader
+     *            reader positioned at the start of the response
+     * @return projection of the response
+     * @throws XMLStreamException
+     *             if the response cannot be read
+     */
+    Document project(final XMLStreamReader reader) throws XMLStreamException {
+        final Document document = XmlUtil.document();
+
+        final boolean[] satisfied = new boolean[paths.length];
+        int remaining = 0;
+        boolean all = false;
+        for (final Path path : paths) {
+            if (path.all) {
+                all = true;
+            } else {
+                remaining++;
+            }
+        }
+
+        final List<Frame> stack = new ArrayList<>();
+        int captured = -1;
+        while (reader.hasNext() && (all || (remaining > 0) || (captured >= 0))) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                final Frame frame = new Frame(reader);
+                stack.add(frame);
+                if (captured >= 0) {
+                    materialize(document, stack);
+                }
+
+                boolean capture = false;
+                for (int i = 0; i < paths.length; i++) {
+                    final Path path = paths[i];
+                    if (satisfied[i] || !path.matches(stack)) {
+                        continue;
+                    }
+
+                    if (path.attribute != null) {
+                        if (frame.hasAttribute(path.attribute)) {
+                            materialize(document, stack);
+                            satisfied[i] = !path.all;
+                        }
+                    } else {
+                        capture = true;
+                        if (path.text && !path.all) {
+                            if (frame.pendingText == null) {
+                                frame.pendingText = new ArrayList<>();
+                            }
+                            frame.pendingText.add(path);
+                        } else {
+                            satisfied[i] = !path.all;
+                        }
+                    }
+
+                    if (satisfied[i]) {
+                        remaining--;
+                    }
+                }
+
+                if (capture && (captured < 0)) {
+                    materialize(document, stack);
+                    captured = stack.size() - 1;
+                }
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                final Frame ended = stack.remove(stack.size() - 1);
+                if ((ended.pendingText != null) && ended.text) {
+                    for (final Path path : ended.pendingText) {
+                        for (int i = 0; i < paths.length; i++) {
+                            if ((paths[i] == path) && !satisfied[i]) {
+                                satisfied[i] = true;
+                                remaining--;
+                            }
+                        }
+                    }
+                }
+
+                if (captured == stack.size()) {
+                    captured = -1;
+                }
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+            case XMLStreamConstants.CDATA:
+                if (!stack.isEmpty()) {
+                    final Frame parent = stack.get(stack.size() - 1);
+                    parent.text = true;
+                    if (captured >= 0) {
+                        parent.element.appendChild(reader.getEventType() == XMLStreamConstants.CDATA
+                                ? document.createCDATASection(reader.getText())
+                                : document.createTextNode(reader.getText()));
+                    }
+                }
+                break;
+            default:
+                // comments and processing instructions have no part in element string values
+                break;
+            }
+        }
+
+        return document;
+    }
+
+    /**
+     * Expressions that cannot be evaluated on the projection, if any the whole response is needed.
+     *
+     * @return unsupported expressions
+     */
+    List<String> unsupported() {
+        return unsupported;
+    }
+}
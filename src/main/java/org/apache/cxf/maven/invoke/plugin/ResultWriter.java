@@ -0,0 +1,183 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the outcome of each invocation as a CSV record, as soon as the invocation completes. Records are written in
+ * completion order, the {@code row} column holds the number of the input row. The columns are {@code row},
+ * {@code latency} in milliseconds, {@code outcome} with either {@code OK} or the failure message, followed by a column
+ * for each extracted property.
+ */
+final class ResultWriter implements Closeable {
+
+    static final String OK = "OK";
+
+    private final List<String> columns;
+
+    private int failures;
+
+    private final Writer output;
+
+    private int written;
+
+    /**
+     * Creates the writer, replacing any existing file, and writes the header line.
+     *
+     * @param file
+     *            file to write
+     * @param columns
+     *            names of the extracted properties
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    ResultWriter(final File file, final Collection<String> columns) throws IOException {
+        this(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8), columns);
+    }
+
+    ResultWriter(final Writer output, final Collection<String> columns) throws IOException {
+        this.output = output instanceof BufferedWriter ? output : new BufferedWriter(output);
+        this.columns = new ArrayList<>(columns);
+
+        final List<String> header = new ArrayList<>();
+        header.add("row");
+        header.add("latency");
+        header.add("outcome");
+        header.addAll(this.columns);
+
+        writeRecord(header);
+    }
+
+    /**
+     * Quotes the value if it contains a comma, quote or line break.
+     *
+     * @param value
+     *            value to quote
+     * @return CSV value
+     */
+    static String quote(final String value) {
+        if (value == null) {
+            return "";
+        }
+
+        if ((value.indexOf(',') < 0) && (value.indexOf('"') < 0) && (value.indexOf('\n') < 0)
+                && (value.indexOf('\r') < 0)) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        output.close();
+    }
+
+    /**
+     * Records a failed invocation.
+     *
+     * @param row
+     *            number of the input row
+     * @param latency
+     *            latency in milliseconds
+     * @param failure
+     *            cause of the failure
+     * @throws IOException
+     *             if the record cannot be written
+     */
+    synchronized void failure(final int row, final long latency, final Throwable failure) throws IOException {
+        failures++;
+
+        final List<String> record = new ArrayList<>();
+        record.add(String.valueOf(row));
+        record.add(String.valueOf(latency));
+        record.add(String.valueOf(failure.getMessage() == null ? failure : failure.getMessage()));
+        for (int i = 0; i < columns.size(); i++) {
+            record.add("");
+        }
+
+        writeRecord(record);
+    }
+
+    /**
+     * Number of failures recorded.
+     *
+     * @return failures
+     */
+    synchronized int failures() {
+        return failures;
+    }
+
+    /**
+     * Records a successful invocation.
+     *
+     * @param row
+     *            number of the input row
+     * @param latency
+     *            latency in milliseconds
+     * @param values
+     *            extracted property values by name
+     * @throws IOException
+     *             if the record cannot be written
+     */
+    synchronized void success(final int row, final long latency, final Map<String, String> values)
+            throws IOException {
+        final List<String> record = new ArrayList<>();
+        record.add(String.valueOf(row));
+        record.add(String.valueOf(latency));
+        record.add(OK);
+        for (final String column : columns) {
+            record.add(values.get(column));
+        }
+
+        writeRecord(record);
+    }
+
+    /**
+     * Number of records written, not counting the header.
+     *
+     * @return records written
+     */
+    synchronized int written() {
+        return written - 1;
+    }
+
+    private void writeRecord(final List<String> record) throws IOException {
+        for (int i = 0; i < record.size(); i++) {
+            if (i > 0) {
+                output.write(',');
+            }
+            output.write(quote(record.get(i)));
+        }
+        output.write('\n');
+
+        written++;
+    }
+}
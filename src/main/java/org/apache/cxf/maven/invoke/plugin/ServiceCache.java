@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.Service;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.component.annotations.Component;
+
+/**
+ * Cache of {@link Service} objects created from WSDL documents, shared by all executions of the plugin within a single
+ * Maven session. Creating a {@link Service} downloads and parses the WSDL and any imported schemas, so this is done
+ * once per distinct {@link Key} and reused across repeated invocations, executions and modules.
+ */
+@Component(role = ServiceCache.class)
+public final class ServiceCache {
+
+    /**
+     * Identifies a {@link Service}: WSDL location, service name and the configuration that is applied to the
+     * {@link Service} when it is created.
+     */
+    static final class Key {
+
+        private final boolean logging;
+
+        private final QName serviceName;
+
+        private final URI wsdl;
+
+        Key(final URI wsdl, final QName serviceName, final boolean logging) {
+            this.wsdl = wsdl;
+            this.serviceName = serviceName;
+            this.logging = logging;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) obj;
+
+            return Objects.equals(wsdl, other.wsdl) && Objects.equals(serviceName, other.serviceName)
+                    && (logging == other.logging);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(wsdl, serviceName, logging);
+        }
+
+        @Override
+        public String toString() {
+            return wsdl + " " + serviceName;
+        }
+    }
+
+    /**
+     * Creates the {@link Service} on cache miss.
+     */
+    @FunctionalInterface
+    interface ServiceFactory {
+        Service create() throws MojoExecutionException;
+    }
+
+    /**
+     * Carries {@link MojoExecutionException} out of {@link ConcurrentMap#computeIfAbsent}.
+     */
+    private static final class ServiceCreationException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ServiceCreationException(final MojoExecutionException cause) {
+            super(cause);
+        }
+    }
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /** Request of the session the cached services belong to, weakly held so it can be collected after the build */
+    private WeakReference<Object> session = new WeakReference<>(null);
+
+    private final ConcurrentMap<Key, Service> services = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached {@link Service} for the given key, creating it using the given factory if needed.
+     *
+     * @param key
+     *            identifies the service
+     * @param factory
+     *            creates the service on cache miss
+     * @return cached or newly created service
+     * @throws MojoExecutionException
+     *             if the service could not be created
+     */
+    Service get(final Key key, final ServiceFactory factory) throws MojoExecutionException {
+        final Service cached = services.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+
+            return cached;
+        }
+
+        final boolean[] created = new boolean[1];
+        final Service service;
+        try {
+            service = services.computeIfAbsent(key, k -> {
+                created[0] = true;
+                try {
+                    return factory.create();
+                } catch (final MojoExecutionException e) {
+                    throw new ServiceCreationException(e);
+                }
+            });
+        } catch (final ServiceCreationException e) {
+            misses.incrementAndGet();
+
+            throw (MojoExecutionException) e.getCause();
+        }
+
+        // another thread might have created the service in the meantime
+        (created[0] ? misses : hits).incrementAndGet();
+
+        return service;
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Binds the cache to the given session, clearing it if the previous session has ended. Sessions are identified by
+     * their request as the session itself is cloned for each module in parallel builds.
+     *
+     * @param mavenSession
+     *            current Maven session
+     */
+    synchronized void session(final MavenSession mavenSession) {
+        final Object request = mavenSession == null ? null : mavenSession.getRequest();
+
+        if (session.get() != request) {
+            services.clear();
+            hits.set(0);
+            misses.set(0);
+            session = new WeakReference<>(request);
+        }
+    }
+
+    /**
+     * Summary of cache hits and misses for logging.
+     */
+    @Override
+    public String toString() {
+        return "Service cache: " + hits.get() + " hit(s), " + misses.get() + " miss(es)";
+    }
+}
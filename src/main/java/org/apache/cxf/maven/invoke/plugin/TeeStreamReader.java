@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+/**
+ * {@link XMLStreamReader} that writes every event read to a {@link XMLStreamWriter}, so that XML can be stored while
+ * it is being processed, in one pass over it. Whatever the consumer does not read is copied by
+ * {@link TeeStreamReader#drain()}.
+ */
+final class TeeStreamReader extends StreamReaderDelegate {
+
+    private final XMLStreamWriter writer;
+
+    /**
+     * Starts the document in the writer, and writes the current event of the reader.
+     *
+     * @param reader
+     *            reader to read from
+     * @param writer
+     *            writer to copy the events to
+     * @throws XMLStreamException
+     *             if unable to write
+     */
+    TeeStreamReader(final XMLStreamReader reader, final XMLStreamWriter writer) throws XMLStreamException {
+        super(reader);
+        this.writer = writer;
+
+        writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        if (reader.getEventType() != XMLStreamConstants.START_DOCUMENT) {
+            write(reader.getEventType());
+        }
+    }
+
+    private static String valueOf(final String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Reads and copies the remaining events, and flushes the writer.
+     *
+     * @throws XMLStreamException
+     *             if unable to read or write
+     */
+    void drain() throws XMLStreamException {
+        while (hasNext()) {
+            next();
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Implemented with {@link TeeStreamReader#next()} so that the events read are copied.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public String getElementText() throws XMLStreamException {
+        final StringBuilder text = new StringBuilder();
+        int event = next();
+        while (event != XMLStreamConstants.END_ELEMENT) {
+            if ((event == XMLStreamConstants.CHARACTERS) || (event == XMLStreamConstants.CDATA)
+                    || (event == XMLStreamConstants.SPACE) || (event == XMLStreamConstants.ENTITY_REFERENCE)) {
+                text.append(getText());
+            } else if (event != XMLStreamConstants.COMMENT
+                    && event != XMLStreamConstants.PROCESSING_INSTRUCTION) {
+                throw new XMLStreamException("Element text expected", getLocation());
+            }
+            event = next();
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Reads the next event and copies it to the writer.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public int next() throws XMLStreamException {
+        final int event = super.next();
+        write(event);
+
+        return event;
+    }
+
+    /**
+     * Implemented with {@link TeeStreamReader#next()} so that the events read are copied.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public int nextTag() throws XMLStreamException {
+        int event = next();
+        while (((event == XMLStreamConstants.CHARACTERS) && isWhiteSpace())
+                || ((event == XMLStreamConstants.CDATA) && isWhiteSpace()) || (event == XMLStreamConstants.SPACE)
+                || (event == XMLStreamConstants.COMMENT) || (event == XMLStreamConstants.PROCESSING_INSTRUCTION)) {
+            event = next();
+        }
+
+        if ((event != XMLStreamConstants.START_ELEMENT) && (event != XMLStreamConstants.END_ELEMENT)) {
+            throw new XMLStreamException("Start or end tag expected", getLocation());
+        }
+
+        return event;
+    }
+
+    private void write(final int event) throws XMLStreamException {
+        switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+            writer.writeStartElement(valueOf(getPrefix()), getLocalName(), valueOf(getNamespaceURI()));
+            for (int i = 0; i < getNamespaceCount(); i++) {
+                final String prefix = getNamespacePrefix(i);
+                if ((prefix == null) || prefix.isEmpty()) {
+                    writer.writeDefaultNamespace(valueOf(getNamespaceURI(i)));
+                } else {
+                    writer.writeNamespace(prefix, valueOf(getNamespaceURI(i)));
+                }
+            }
+            for (int i = 0; i < getAttributeCount(); i++) {
+                writer.writeAttribute(valueOf(getAttributePrefix(i)), valueOf(getAttributeNamespace(i)),
+                        getAttributeLocalName(i), getAttributeValue(i));
+            }
+            break;
+        case XMLStreamConstants.END_ELEMENT:
+            writer.writeEndElement();
+            break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+            writer.writeCharacters(getTextCharacters(), getTextStart(), getTextLength());
+            break;
+        case XMLStreamConstants.CDATA:
+            writer.writeCData(getText());
+            break;
+        case XMLStreamConstants.COMMENT:
+            writer.writeComment(getText());
+            break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+            writer.writeProcessingInstruction(getPITarget(), valueOf(getPIData()));
+            break;
+        case XMLStreamConstants.ENTITY_REFERENCE:
+            writer.writeEntityRef(getLocalName());
+            break;
+        case XMLStreamConstants.END_DOCUMENT:
+            writer.writeEndDocument();
+            break;
+        default:
+            // document type declarations are not allowed in SOAP messages
+            break;
+        }
+    }
+}
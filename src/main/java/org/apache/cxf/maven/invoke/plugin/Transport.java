@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.transform.Source;
+import javax.xml.ws.Dispatch;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.jaxws.DispatchImpl;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.HTTPConduitFactory;
+import org.apache.cxf.transport.http.asyncclient.AsyncHTTPConduitFactory;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+
+/**
+ * HTTP transport configuration applied to the {@link HTTPConduit} of the {@link Dispatch}, given as the
+ * {@code transport} configuration block. Options that are not given keep the CXF defaults.
+ */
+public class Transport {
+
+    /** Send the request using chunked transfer encoding if larger than {@link Transport#chunkingThreshold} */
+    Boolean allowChunking;
+
+    /** Size in bytes from which requests are sent chunked, CXF default is 4096 */
+    Integer chunkingThreshold;
+
+    /** Milliseconds to wait for the connection to be established, CXF default is 30000, 0 waits indefinitely */
+    Long connectionTimeout;
+
+    /** Keep connections open to be reused by following requests, if false each request uses a new connection */
+    Boolean keepAlive;
+
+    /**
+     * Maximum number of pooled connections of the asynchronous (Apache HttpComponents) transport, shared by all
+     * executions in the Maven session
+     */
+    Integer maxConnections;
+
+    /** Maximum number of pooled connections per host of the asynchronous transport */
+    Integer maxConnectionsPerHost;
+
+    /** Milliseconds to wait for the response, CXF default is 60000, 0 waits indefinitely */
+    Long receiveTimeout;
+
+    /**
+     * Send requests over the asynchronous (Apache HttpComponents) transport, with pooled connections, also when
+     * invoking synchronously
+     */
+    Boolean useAsyncTransport;
+
+    /**
+     * Applies the configuration to the conduit of the dispatch and, for the pool sizes, to the asynchronous transport
+     * of its bus.
+     *
+     * @param dispatch
+     *            dispatch to configure, created by CXF
+     * @throws IllegalArgumentException
+     *             if the dispatch is not a CXF dispatch or does not use HTTP
+     */
+    void apply(final Dispatch<Source> dispatch) {
+        if (!(dispatch instanceof DispatchImpl)) {
+            throw new IllegalArgumentException("HTTP transport can be configured only on CXF dispatch");
+        }
+
+        final Client client = ((DispatchImpl<?>) dispatch).getClient();
+        if (!(client.getConduit() instanceof HTTPConduit)) {
+            throw new IllegalArgumentException("The service does not use HTTP transport, unable to configure it");
+        }
+
+        final HTTPConduit conduit = (HTTPConduit) client.getConduit();
+        final HTTPClientPolicy policy = conduit.getClient() != null ? conduit.getClient() : new HTTPClientPolicy();
+
+        if (allowChunking != null) {
+            policy.setAllowChunking(allowChunking);
+        }
+        if (chunkingThreshold != null) {
+            policy.setChunkingThreshold(chunkingThreshold);
+        }
+        if (connectionTimeout != null) {
+            policy.setConnectionTimeout(connectionTimeout);
+        }
+        if (keepAlive != null) {
+            policy.setConnection(keepAlive ? ConnectionType.KEEP_ALIVE : ConnectionType.CLOSE);
+        }
+        if (receiveTimeout != null) {
+            policy.setReceiveTimeout(receiveTimeout);
+            policy.setAsyncExecuteTimeout(receiveTimeout);
+        }
+        conduit.setClient(policy);
+
+        if (useAsyncTransport != null) {
+            dispatch.getRequestContext().put(AsyncInvoker.USE_ASYNC_HTTP_CONDUIT, useAsyncTransport);
+        }
+
+        if ((maxConnections != null) || (maxConnectionsPerHost != null)) {
+            configurePool(client.getBus());
+        }
+    }
+
+    private void configurePool(final Bus bus) {
+        final HTTPConduitFactory factory = bus.getExtension(HTTPConduitFactory.class);
+        if (!(factory instanceof AsyncHTTPConduitFactory)) {
+            return;
+        }
+
+        final Map<String, Object> pool = new HashMap<>();
+        if (maxConnections != null) {
+            pool.put(AsyncHTTPConduitFactory.MAX_CONNECTIONS, maxConnections);
+        }
+        if (maxConnectionsPerHost != null) {
+            pool.put(AsyncHTTPConduitFactory.MAX_PER_HOST_CONNECTIONS, maxConnectionsPerHost);
+        }
+
+        // restarts the transport only if the sizes differ from the current ones
+        ((AsyncHTTPConduitFactory) factory).update(pool);
+    }
+}
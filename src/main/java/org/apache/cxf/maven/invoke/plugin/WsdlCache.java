@@ -0,0 +1,376 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import org.xml.sax.SAXException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Persistent cache of WSDL documents and any WSDL or XML schema documents they import. Cached documents are
+ * revalidated using {@code If-None-Match} and {@code If-Modified-Since} conditional requests, and in offline mode are
+ * used without contacting the server at all. For each cached WSDL an OASIS XML catalog is written that maps the
+ * original locations to the cached files, so that CXF can resolve them from disk.
+ */
+final class WsdlCache {
+
+    private static final String ETAG = "etag";
+
+    private static final String LAST_MODIFIED = "last-modified";
+
+    private static final String LOCATION = "location";
+
+    private static final String WSDL_NAMESPACE = "http://schemas.xmlsoap.org/wsdl/";
+
+    private final File directory;
+
+    private final Log log;
+
+    private final boolean offline;
+
+    /**
+     * Creates the cache in the given directory.
+     *
+     * @param directory
+     *            where to store cached documents
+     * @param offline
+     *            if true never contact the server, use only cached documents
+     * @param log
+     *            for reporting cache activity
+     */
+    WsdlCache(final File directory, final boolean offline, final Log log) {
+        this.directory = directory;
+        this.offline = offline;
+        this.log = log;
+    }
+
+    /**
+     * Given a location of a XML document finds all WSDL or XML schema documents it imports. Relative import locations
+     * are rewritten to absolute ones in the document, so that they can be resolved through the catalog regardless of
+     * where the document is cached.
+     *
+     * @param location
+     *            location of the document
+     * @param document
+     *            the document content
+     * @return imported locations
+     * @throws IOException
+     *             if the document cannot be read, parsed or rewritten
+     */
+    static List<URI> imports(final URI location, final File document) throws IOException {
+        final Document parsed;
+        try {
+            parsed = XmlUtil.parse(document);
+        } catch (final SAXException e) {
+            throw new IOException("Unable to parse `" + location + "`", e);
+        }
+
+        final List<URI> imports = new ArrayList<>();
+        boolean rewritten = false;
+
+        final NodeList elements = parsed.getElementsByTagNameNS("*", "*");
+        for (int i = 0; i < elements.getLength(); i++) {
+            final Element element = (Element) elements.item(i);
+
+            final Attr attribute = importAttribute(element);
+            if ((attribute == null) || attribute.getValue().isEmpty()) {
+                continue;
+            }
+
+            final URI imported = location.resolve(attribute.getValue());
+            imports.add(imported);
+
+            if (!imported.toString().equals(attribute.getValue())) {
+                attribute.setValue(imported.toString());
+                rewritten = true;
+            }
+        }
+
+        if (rewritten) {
+            try {
+                XmlUtil.transformer().transform(new DOMSource(parsed), new StreamResult(document));
+            } catch (final TransformerException e) {
+                throw new IOException("Unable to rewrite imports of `" + location + "`", e);
+            }
+        }
+
+        return imports;
+    }
+
+    /**
+     * Returns the attribute holding the imported location if the given element is a WSDL import or XML schema
+     * import, include or redefine.
+     */
+    private static Attr importAttribute(final Element element) {
+        final String namespace = element.getNamespaceURI();
+        final String name = element.getLocalName();
+
+        if (WSDL_NAMESPACE.equals(namespace) && "import".equals(name)) {
+            return element.getAttributeNode(LOCATION);
+        }
+
+        if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(namespace)
+                && ("import".equals(name) || "include".equals(name) || "redefine".equals(name))) {
+            return element.getAttributeNode("schemaLocation");
+        }
+
+        return null;
+    }
+
+    /**
+     * Computes the name of the cache entry for the given location.
+     *
+     * @param location
+     *            location of the document
+     * @return cache entry name
+     */
+    static String key(final URI location) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            final byte[] hash = digest.digest(location.toString().getBytes(StandardCharsets.UTF_8));
+
+            final StringBuilder key = new StringBuilder(hash.length * 2);
+            for (final byte b : hash) {
+                key.append(String.format("%02x", b));
+            }
+
+            return key.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 message digest is not available", e);
+        }
+    }
+
+    /**
+     * Determines if the document at the given location should be cached, only remote HTTP(S) locations are.
+     *
+     * @param location
+     *            location of the document
+     * @return true if the document is cached
+     */
+    static boolean remote(final URI location) {
+        final String scheme = location.getScheme();
+
+        return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme);
+    }
+
+    private static void write(final Path target, final Properties properties) throws IOException {
+        final Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            properties.store(out, null);
+        }
+
+        move(temporary, target);
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Caches the WSDL at the given location and all the documents it imports, and writes an OASIS XML catalog mapping
+     * their locations to the cached files.
+     *
+     * @param wsdl
+     *            location of the WSDL
+     * @return URL of the written catalog or {@code null} if the WSDL is not remote and thus not cached
+     * @throws MojoExecutionException
+     *             if a document is not cached and cannot be downloaded
+     */
+    URL cache(final URI wsdl) throws MojoExecutionException {
+        if (!remote(wsdl)) {
+            return null;
+        }
+
+        final Map<URI, File> cached = new LinkedHashMap<>();
+        cache(wsdl, cached);
+
+        final File catalog = new File(directory, key(wsdl) + "-catalog.xml");
+        try {
+            writeCatalog(catalog, cached);
+
+            return catalog.toURI().toURL();
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to write XML catalog `" + catalog + "`", e);
+        }
+    }
+
+    /**
+     * Caches the document at the given location, if not already visited, and all the documents it imports.
+     */
+    private void cache(final URI location, final Map<URI, File> cached) throws MojoExecutionException {
+        if (cached.containsKey(location) || !remote(location)) {
+            return;
+        }
+
+        final File document = fetch(location);
+        cached.put(location, document);
+
+        final List<URI> imports;
+        try {
+            imports = imports(location, document);
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to find imports in cached document `" + location + "`", e);
+        }
+
+        for (final URI imported : imports) {
+            cache(imported, cached);
+        }
+    }
+
+    /**
+     * Returns the cached document for the location, downloading or revalidating it unless offline.
+     *
+     * @param location
+     *            location of the document
+     * @return cached document
+     * @throws MojoExecutionException
+     *             if the document is not cached and cannot be downloaded
+     */
+    File fetch(final URI location) throws MojoExecutionException {
+        final String key = key(location);
+        final File document = new File(directory, key + ".xml");
+        final File metadataFile = new File(directory, key + ".properties");
+
+        if (offline) {
+            if (!document.isFile()) {
+                throw new MojoExecutionException(
+                        "Working offline and `" + location + "` has not been cached in `" + directory + "`");
+            }
+
+            log.debug("Offline, using cached `" + location + "`");
+            return document;
+        }
+
+        final Properties metadata = new Properties();
+        try {
+            if (document.isFile() && metadataFile.isFile()) {
+                try (InputStream in = Files.newInputStream(metadataFile.toPath())) {
+                    metadata.load(in);
+                }
+            }
+
+            final HttpURLConnection connection = (HttpURLConnection) location.toURL().openConnection();
+            try {
+                final String etag = metadata.getProperty(ETAG);
+                if (etag != null) {
+                    connection.setRequestProperty("If-None-Match", etag);
+                }
+
+                final String lastModified = metadata.getProperty(LAST_MODIFIED);
+                if (lastModified != null) {
+                    connection.setIfModifiedSince(Long.parseLong(lastModified));
+                }
+
+                final int status = connection.getResponseCode();
+                if ((status == HttpURLConnection.HTTP_NOT_MODIFIED) && document.isFile()) {
+                    log.debug("Cached `" + location + "` is up to date");
+                    return document;
+                }
+
+                if (status != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Server responded with HTTP status " + status);
+                }
+
+                Files.createDirectories(directory.toPath());
+
+                final Path temporary = Files.createTempFile(directory.toPath(), key, ".tmp");
+                try (InputStream in = connection.getInputStream()) {
+                    Files.copy(in, temporary, StandardCopyOption.REPLACE_EXISTING);
+                }
+                move(temporary, document.toPath());
+
+                final Properties fetched = new Properties();
+                fetched.setProperty(LOCATION, location.toString());
+                if (connection.getHeaderField("ETag") != null) {
+                    fetched.setProperty(ETAG, connection.getHeaderField("ETag"));
+                }
+                if (connection.getLastModified() != 0) {
+                    fetched.setProperty(LAST_MODIFIED, String.valueOf(connection.getLastModified()));
+                }
+                write(metadataFile.toPath(), fetched);
+
+                log.debug("Downloaded `" + location + "` to cache");
+                return document;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (final IOException e) {
+            if (document.isFile()) {
+                log.warn("Unable to revalidate `" + location + "`, using cached copy: " + e.getMessage());
+                return document;
+            }
+
+            throw new MojoExecutionException("Unable to download `" + location + "`", e);
+        }
+    }
+
+    /**
+     * Writes OASIS XML catalog that maps each location to its cached file, both as system identifier and as URI.
+     */
+    private void writeCatalog(final File catalog, final Map<URI, File> cached) throws IOException {
+        Files.createDirectories(directory.toPath());
+
+        final Path temporary = Files.createTempFile(directory.toPath(), catalog.getName(), ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\" prefer=\"system\">\n");
+            for (final Map.Entry<URI, File> entry : cached.entrySet()) {
+                final String location = XmlUtil.escape(entry.getKey().toString());
+                final String file = XmlUtil.escape(entry.getValue().toURI().toString());
+
+                writer.write("  <system systemId=\"" + location + "\" uri=\"" + file + "\"/>\n");
+                writer.write("  <uri name=\"" + location + "\" uri=\"" + file + "\"/>\n");
+            }
+            writer.write("</catalog>\n");
+        }
+
+        move(temporary, catalog.toPath());
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.codehaus.plexus.component.annotations.Component;
+
+/**
+ * Bounded cache of compiled {@link XPathExpression}s keyed by expression text, shared by all executions of the plugin
+ * so the same expressions used by many modules are not compiled for every response. Compiled expressions are not
+ * thread safe, so each thread has its own cache and evaluates its own compiled expressions without contending for a
+ * lock. The least recently used expressions of a thread are evicted when its cache is full. Expressions are compiled
+ * without namespace context, so the text identifies them.
+ * <p>
+ * Hits, misses and evictions are counted over all threads.
+ */
+@Component(role = XPathCache.class)
+public final class XPathCache {
+
+    /** Default maximum number of cached expressions per thread */
+    static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /** Cached expressions of each thread in access order */
+    private final ThreadLocal<Map<String, XPathExpression>> expressions;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public XPathCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    XPathCache(final int maximumSize) {
+        expressions = ThreadLocal.withInitial(() -> new LinkedHashMap<String, XPathExpression>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, XPathExpression> eldest) {
+                if (size() > maximumSize) {
+                    evictions.incrementAndGet();
+
+                    return true;
+                }
+
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Evaluates the given expression, compiled or taken from the cache of the calling thread, on the given item.
+     *
+     * @param expression
+     *            XPath expression
+     * @param item
+     *            context item, e.g. DOM document
+     * @param returnType
+     *            expected result type, one of {@link javax.xml.xpath.XPathConstants}
+     * @return result of the evaluation
+     * @throws XPathExpressionException
+     *             if the expression cannot be compiled or evaluated
+     */
+    Object evaluate(final String expression, final Object item, final QName returnType)
+            throws XPathExpressionException {
+        return get(expression).evaluate(item, returnType);
+    }
+
+    long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the compiled expression from the cache of the calling thread, compiling and caching it on cache miss.
+     * The returned expression must be used only by the calling thread.
+     *
+     * @param expression
+     *            XPath expression
+     * @return compiled expression
+     * @throws XPathExpressionException
+     *             if the expression cannot be compiled
+     */
+    XPathExpression get(final String expression) throws XPathExpressionException {
+        final Map<String, XPathExpression> cache = expressions.get();
+
+        final XPathExpression cached = cache.get(expression);
+        if (cached != null) {
+            hits.incrementAndGet();
+
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        final XPathExpression compiled = XmlUtil.xpathExpression(expression);
+        cache.put(expression, compiled);
+
+        return compiled;
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of expressions cached by the calling thread.
+     *
+     * @return size of the cache of the calling thread
+     */
+    int size() {
+        return expressions.get().size();
+    }
+
+    /**
+     * Summary of cache size of the calling thread, and hits, misses and evictions of all threads for logging.
+     */
+    @Override
+    public String toString() {
+        final long lookups = hits.get() + misses.get();
+
+        return String.format(Locale.ROOT,
+                "XPath cache: %d expression(s) in this thread, %d hit(s), %d miss(es), %d eviction(s), hit rate %.1f%%",
+                size(), hits.get(), misses.get(), evictions.get(),
+                lookups == 0 ? 0 : (100.0 * hits.get()) / lookups);
+    }
+}
@@ -18,8 +18,10 @@
  */
 package org.apache.cxf.maven.invoke.plugin;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.StringWriter;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
@@ -27,8 +29,11 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
@@ -41,36 +46,39 @@ import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 /**
- * Miscellaneous XML related utility methods.
+ * Miscellaneous XML related utility methods. The JAXP objects are not thread safe, so each thread uses its own, and
+ * the methods can be used concurrently, e.g. by executions in parallel builds, without contending for a lock.
  */
 public final class XmlUtil {
 
-    private static final DocumentBuilder DOCUMENT_BUILDER;
-
-    private static final TransformerFactory TRANSFORMER_FACTORY;
-
-    private static final XPath XPATH;
-
-    static {
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = ThreadLocal.withInitial(() -> {
         final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
         documentBuilderFactory.setNamespaceAware(true);
+        documentBuilderFactory.setExpandEntityReferences(false);
+        documentBuilderFactory.setXIncludeAware(false);
         try {
-            DOCUMENT_BUILDER = documentBuilderFactory.newDocumentBuilder();
+            documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            documentBuilderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+
+            return documentBuilderFactory.newDocumentBuilder();
         } catch (final ParserConfigurationException e) {
-            throw new ExceptionInInitializerError(e);
+            throw new IllegalStateException("Unable to use JAXP API", e);
         }
+    });
 
-        final XPathFactory xPathFactory = XPathFactory.newInstance();
-        XPATH = xPathFactory.newXPath();
-
-        TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+    private static final ThreadLocal<TransformerFactory> TRANSFORMER_FACTORY = ThreadLocal.withInitial(() -> {
+        final TransformerFactory transformerFactory = TransformerFactory.newInstance();
         try {
-            TRANSFORMER_FACTORY.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
         } catch (final TransformerConfigurationException e) {
-            throw new ExceptionInInitializerError(e);
+            throw new IllegalStateException("Unable to use JAXP API", e);
         }
 
-    }
+        return transformerFactory;
+    });
+
+    private static final ThreadLocal<XPath> XPATH = ThreadLocal
+            .withInitial(() -> XPathFactory.newInstance().newXPath());
 
     /**
      * Utility class, no instantiation allowed.
@@ -80,7 +88,43 @@ public final class XmlUtil {
     }
 
     /**
-     * Parses the given {@link String} using namespace aware DOM parser and returns the first (document) element.
+     * Escapes the given text for use in XML content or attribute values.
+     *
+     * @param text
+     *            text to escape
+     * @return escaped text
+     */
+    public static String escape(final String text) {
+        final StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            switch (c) {
+            case '<':
+                escaped.append("&lt;");
+                break;
+            case '>':
+                escaped.append("&gt;");
+                break;
+            case '&':
+                escaped.append("&amp;");
+                break;
+            case '"':
+                escaped.append("&quot;");
+                break;
+            case '\'':
+                escaped.append("&apos;");
+                break;
+            default:
+                escaped.append(c);
+            }
+        }
+
+        return escaped.toString();
+    }
+
+    /**
+     * Parses the given {@link String} using namespace aware DOM parser and returns the first (document) element. The
+     * parser rejects document type declarations, so no external entities are ever resolved.
      *
      * @param xml
      *            string containing XML
@@ -94,19 +138,53 @@ public final class XmlUtil {
         final InputSource inputSource = new InputSource();
         inputSource.setCharacterStream(new StringReader(xml));
 
-        final Document document = DOCUMENT_BUILDER.parse(inputSource);
+        final Document document = DOCUMENT_BUILDER.get().parse(inputSource);
 
         return document.getDocumentElement();
     }
 
     /**
-     * Creates a new {@link Transformer} with safe processing enabled.
+     * Parses the given {@link File} using namespace aware DOM parser, rejecting document type declarations.
+     *
+     * @param file
+     *            file containing XML
+     * @return parsed document
+     * @throws SAXException
+     *             if XML cannot be parsed
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    static Document parse(final File file) throws SAXException, IOException {
+        return DOCUMENT_BUILDER.get().parse(file);
+    }
+
+    /**
+     * Serializes the given {@link Node} to {@link String}.
+     *
+     * @param node
+     *            node to serialize
+     * @return XML representation of the node
+     */
+    public static String toString(final Node node) {
+        final StringWriter writer = new StringWriter();
+        try {
+            transformer().transform(new DOMSource(node), new StreamResult(writer));
+        } catch (final TransformerException e) {
+            throw new IllegalArgumentException("Unable to serialize XML node", e);
+        }
+
+        return writer.toString();
+    }
+
+    /**
+     * Creates a new {@link Transformer} with safe processing enabled. Transformers are not thread safe, so the
+     * transformer must not be used by other threads concurrently.
      *
      * @return new transformer
      */
     public static Transformer transformer() {
         try {
-            return TRANSFORMER_FACTORY.newTransformer();
+            return TRANSFORMER_FACTORY.get().newTransformer();
         } catch (TransformerConfigurationException | TransformerFactoryConfigurationError e) {
             throw new IllegalStateException("Unable to use JAXP API", e);
         }
@@ -122,7 +200,7 @@ public final class XmlUtil {
      *             if the expression cannot be compiled
      */
     public static XPathExpression xpathExpression(final String expression) throws XPathExpressionException {
-        return XPATH.compile(expression);
+        return XPATH.get().compile(expression);
     }
 
     /**
@@ -131,6 +209,6 @@ public final class XmlUtil {
      * @return namespace aware DOM Document
      */
     static Document document() {
-        return DOCUMENT_BUILDER.newDocument();
+        return DOCUMENT_BUILDER.get().newDocument();
     }
 }
@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.util.Arrays.asList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArtifactWriterTest {
+
+    @Rule
+    public TemporaryFolder workdir = new TemporaryFolder();
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String gunzip(final File file) throws IOException {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            return read(input);
+        }
+    }
+
+    private static String read(final InputStream input) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = input.read(buffer)) > 0) {
+            content.write(buffer, 0, read);
+        }
+
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void shouldAppendFilesToArchive() throws IOException {
+        final File directory = workdir.newFolder();
+        final File archive = new File(directory, "test.zip");
+
+        for (final boolean compress : new boolean[] {false, true}) {
+            try (ArtifactWriter writer = new ArtifactWriter(compress, 5, archive, 4, "test-artifacts")) {
+                writer.write(new File(directory, "request.xml"), bytes("<request/>"));
+
+                try (OutputStream output = writer.open(new File(directory, "response.xml"))) {
+                    output.write(bytes("<a/>"));
+                }
+
+                writer.write(new File(directory, "request.xml"), bytes("<b/>"));
+            }
+
+            assertFalse("Should not write individual files", new File(directory, "request.xml").exists());
+            assertFalse("Should not write individual files", new File(directory, "response.xml").exists());
+
+            try (ZipFile zip = new ZipFile(archive)) {
+                final List<String> names = new ArrayList<>();
+                final List<String> contents = new ArrayList<>();
+                for (final ZipEntry entry : Collections.list(zip.entries())) {
+                    names.add(entry.getName());
+                    assertEquals("Should store or deflate entries", compress ? ZipEntry.DEFLATED : ZipEntry.STORED,
+                            entry.getMethod());
+                    try (InputStream input = zip.getInputStream(entry)) {
+                        contents.add(read(input));
+                    }
+                }
+
+                assertEquals("Should append entries in order, numbering repeated names",
+                        asList("request.xml", "response.xml", "request~2.xml"), names);
+                assertEquals("Should truncate entries", asList("<requ", "<a/>", "<b/>"), contents);
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotCreateArchiveWithoutEntries() throws IOException {
+        final File archive = new File(workdir.newFolder(), "test.zip");
+
+        new ArtifactWriter(false, 0, archive, 4, "test-artifacts").close();
+
+        assertFalse("Should not create empty archive", archive.exists());
+    }
+
+    @Test
+    public void shouldCompressFiles() throws IOException {
+        final File directory = workdir.newFolder();
+
+        try (ArtifactWriter writer = new ArtifactWriter(true, 0, null, 4, "test-artifacts")) {
+            writer.write(new File(directory, "request.xml"), bytes("<request/>"));
+
+            try (OutputStream output = writer.open(new File(directory, "response.xml"))) {
+                output.write(bytes("<response/>"));
+            }
+        }
+
+        assertFalse("Should not write uncompressed file", new File(directory, "request.xml").exists());
+        assertEquals("Should write compressed queued file", "<request/>",
+                gunzip(new File(directory, "request.xml.gz")));
+        assertEquals("Should write compressed opened file", "<response/>",
+                gunzip(new File(directory, "response.xml.gz")));
+    }
+
+    @Test
+    public void shouldReportFailuresOnClose() throws IOException {
+        final File missing = new File(workdir.newFolder(), "missing/request.xml");
+
+        final ArtifactWriter writer = new ArtifactWriter(false, 0, null, 4, "test-artifacts");
+        writer.write(missing, bytes("<request/>"));
+
+        try {
+            writer.close();
+            fail("Expected IOException");
+        } catch (final IOException expected) {
+            assertThat("Should name the file that could not be written", expected.getMessage(),
+                    containsString(missing.toString()));
+        }
+    }
+
+    @Test
+    public void shouldSpoolOpenedEntriesOfArchive() throws IOException {
+        final File directory = workdir.newFolder();
+        final File archive = new File(directory, "test.zip");
+
+        try (ArtifactWriter writer = new ArtifactWriter(false, 0, archive, 4, "test-artifacts")) {
+            try (OutputStream output = writer.open(new File(directory, "response.xml"))) {
+                output.write(bytes("<response>"));
+                assertEquals("Should spool the entry to a temporary file", 1, directory.list().length);
+                output.write(bytes("</response>"));
+            }
+        }
+
+        assertEquals("Should delete the temporary file", asList("test.zip"), asList(directory.list()));
+        try (ZipFile zip = new ZipFile(archive)) {
+            try (InputStream input = zip.getInputStream(zip.getEntry("response.xml"))) {
+                assertEquals("Should append the spooled entry", "<response></response>", read(input));
+            }
+        }
+    }
+
+    @Test
+    public void shouldTruncateFilesAboveLimit() throws IOException {
+        final File directory = workdir.newFolder();
+
+        try (ArtifactWriter writer = new ArtifactWriter(false, 5, null, 4, "test-artifacts")) {
+            writer.write(new File(directory, "request.xml"), bytes("<request/>"));
+            writer.write(new File(directory, "short.xml"), bytes("<a/>"));
+
+            try (OutputStream output = writer.open(new File(directory, "response.xml"))) {
+                output.write(bytes("<resp"));
+                output.write(bytes("onse/>"));
+                output.write('!');
+            }
+        }
+
+        assertEquals("Should truncate queued file", "<requ", read(new File(directory, "request.xml")));
+        assertEquals("Should not truncate file below limit", "<a/>", read(new File(directory, "short.xml")));
+        assertEquals("Should truncate opened file", "<resp", read(new File(directory, "response.xml")));
+    }
+
+    @Test
+    public void shouldWriteAllQueuedFilesBeforeClosing() throws IOException {
+        final File directory = workdir.newFolder();
+
+        try (ArtifactWriter writer = new ArtifactWriter(false, 0, null, 2, "test-artifacts")) {
+            for (int i = 1; i <= 100; i++) {
+                writer.write(new File(directory, "response-" + i + ".xml"), bytes("<response>" + i + "</response>"));
+            }
+        }
+
+        for (int i = 1; i <= 100; i++) {
+            assertEquals("Should write every queued file", "<response>" + i + "</response>",
+                    read(new File(directory, "response-" + i + ".xml")));
+        }
+    }
+
+    @Test
+    public void shouldWriteInCallingThreadWithoutQueue() throws IOException {
+        final File file = new File(workdir.newFolder(), "request.xml");
+
+        final ArtifactWriter writer = new ArtifactWriter();
+        writer.write(file, bytes("<request/>"));
+
+        assertTrue("Should write the file immediately", file.exists());
+        assertEquals("Should write the content", "<request/>", read(file));
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.ws.AsyncHandler;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Response;
+import javax.xml.ws.WebServiceException;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.EasyMockRule;
+import org.easymock.Mock;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class AsyncInvokerTest {
+
+    @Rule
+    public EasyMockRule easyMock = new EasyMockRule(this);
+
+    @Mock
+    private Dispatch<Source> dispatch;
+
+    private final Capture<AsyncHandler<Source>> handlers = newCapture(CaptureType.ALL);
+
+    private final Map<String, Object> requestContext = new HashMap<>();
+
+    @Mock
+    private Response<Source> response;
+
+    @Test
+    public void shouldApplyBackPressureWhenMaxInFlightReached() throws Exception {
+        expectInvocations();
+        expect(response.get()).andReturn(new DOMSource()).anyTimes();
+        replay(dispatch, response);
+
+        final AsyncInvoker invoker = new AsyncInvoker(dispatch, 1);
+        invoker.invoke(new DOMSource());
+
+        final CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+            try {
+                invoker.invoke(new DOMSource());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Thread.sleep(100);
+        assertFalse("Second request should wait for the first one to complete", second.isDone());
+
+        handlers.getValue().handleResponse(response);
+
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals("Second request should have been sent", 2, handlers.getValues().size());
+    }
+
+    @Test
+    public void shouldCompleteWithResponse() throws Exception {
+        final Source source = new DOMSource();
+
+        expectInvocations();
+        expect(response.get()).andReturn(source);
+        replay(dispatch, response);
+
+        final AsyncInvoker invoker = new AsyncInvoker(dispatch, 2);
+        final CompletableFuture<Source> result = invoker.invoke(new DOMSource());
+
+        assertEquals("One request should be in flight", 1, invoker.available());
+
+        handlers.getValue().handleResponse(response);
+
+        assertSame("Should complete with the response", source, result.get());
+        assertEquals("No requests should be in flight", 2, invoker.available());
+
+        assertEquals("Should use asynchronous HTTP conduit", Boolean.TRUE,
+                requestContext.get(AsyncInvoker.USE_ASYNC_HTTP_CONDUIT));
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWithFailureCause() throws Exception {
+        final WebServiceException failure = new WebServiceException("expected");
+
+        expectInvocations();
+        expect(response.get()).andThrow(new ExecutionException(failure));
+        replay(dispatch, response);
+
+        final AsyncInvoker invoker = new AsyncInvoker(dispatch, 1);
+        final CompletableFuture<Source> result = invoker.invoke(new DOMSource());
+
+        handlers.getValue().handleResponse(response);
+
+        try {
+            result.get();
+            fail("Should complete exceptionally");
+        } catch (final ExecutionException e) {
+            assertSame("Should complete with the cause of the failure", failure, e.getCause());
+        }
+
+        assertEquals("Failed request should not be in flight", 1, invoker.available());
+    }
+
+    private void expectInvocations() {
+        expect(dispatch.getRequestContext()).andReturn(requestContext).anyTimes();
+        expect(dispatch.invokeAsync(isA(Source.class), capture(handlers))).andReturn(null).anyTimes();
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Service;
+import javax.xml.ws.soap.SOAPBinding;
+
+import org.w3c.dom.Document;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class AttachmentsTest {
+
+    private static final String BOUNDARY = "uuid:response";
+
+    private static final QName PORT = new QName("urn:test", "port");
+
+    private static final String REQUEST = "<upload xmlns=\"urn:test\"><data><xop:Include"
+            + " xmlns:xop=\"http://www.w3.org/2004/08/xop/include\" href=\"cid:upload@test\"/></data></upload>";
+
+    private static final String RESPONSE = "--" + BOUNDARY + "\r\n"
+            + "Content-Type: application/xop+xml; charset=UTF-8; type=\"text/xml\"\r\n"
+            + "Content-Transfer-Encoding: binary\r\nContent-ID: <root.message@cxf.apache.org>\r\n\r\n"
+            + "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<uploadResponse xmlns=\"urn:test\"><data><xop:Include"
+            + " xmlns:xop=\"http://www.w3.org/2004/08/xop/include\" href=\"cid:download@test\"/></data>"
+            + "</uploadResponse></soap:Body></soap:Envelope>\r\n--" + BOUNDARY + "\r\n"
+            + "Content-Type: application/octet-stream\r\nContent-Transfer-Encoding: binary\r\n"
+            + "Content-ID: <download@test>\r\n\r\nresponse attachment\r\n--" + BOUNDARY + "--";
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    /** Content type and body of the last request received */
+    private volatile String received;
+
+    private HttpServer server;
+
+    private static byte[] read(final InputStream input) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = input.read(buffer)) > 0) {
+            content.write(buffer, 0, read);
+        }
+
+        return content.toByteArray();
+    }
+
+    private Dispatch<Source> dispatch(final File upload) {
+        final Service service = Service.create(new QName("urn:test", "service"));
+        service.addPort(PORT, SOAPBinding.SOAP11HTTP_BINDING,
+                "http://localhost:" + server.getAddress().getPort() + "/upload");
+
+        final Dispatch<Source> dispatch = service.createDispatch(PORT, Source.class, Service.Mode.PAYLOAD);
+        new Attachments(Collections.singletonMap("upload@test", upload)).apply(dispatch);
+
+        return dispatch;
+    }
+
+    private void upload(final HttpExchange exchange) throws IOException {
+        received = exchange.getRequestHeaders().getFirst("Content-Type") + "\n"
+                + new String(read(exchange.getRequestBody()), StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "multipart/related; type=\"application/xop+xml\"; boundary=\""
+                + BOUNDARY + "\"; start=\"<root.message@cxf.apache.org>\"; start-info=\"text/xml\"");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(RESPONSE.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private File upload() throws IOException {
+        final File upload = temporary.newFile("upload.bin");
+        Files.write(upload.toPath(), "request attachment".getBytes(StandardCharsets.UTF_8));
+
+        return upload;
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/upload", this::upload);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldSendFilesAsAttachmentsAndStoreResponseAttachments() throws Exception {
+        final Dispatch<Source> dispatch = dispatch(upload());
+
+        final Document response = StaxUtils.read(dispatch.invoke(new StreamSource(new StringReader(REQUEST))));
+
+        assertThat("Should send the request as MTOM", received, containsString("multipart/related"));
+        assertThat("Should send the file as attachment", received,
+                containsString("Content-ID: <upload@test>\r\n\r\nrequest attachment"));
+        assertEquals("Should receive the response", 1,
+                response.getElementsByTagNameNS("urn:test", "uploadResponse").getLength());
+
+        final File directory = temporary.newFolder();
+        final List<File> stored = Attachments.store(dispatch.getResponseContext(), directory, "-1");
+
+        final File expected = new File(directory, "attachment-1-download@test");
+        assertEquals("Should store the response attachment", Collections.singletonList(expected), stored);
+        assertArrayEquals("Should store the content of the response attachment",
+                "response attachment".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(expected.toPath()));
+    }
+
+    @Test
+    public void shouldStoreResponseAttachmentsOfAsynchronousInvocation() throws Exception {
+        final File directory = temporary.newFolder();
+        final AsyncInvoker invoker = new AsyncInvoker(dispatch(upload()), 1);
+
+        invoker.invoke(new StreamSource(new StringReader(REQUEST)), context -> {
+            try {
+                Attachments.store(context, directory, "");
+            } catch (final IOException e) {
+                throw new AssertionError(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+
+        assertThat("Should send the file as attachment", received, containsString("request attachment"));
+        assertArrayEquals("Should store the response attachment",
+                "response attachment".getBytes(StandardCharsets.UTF_8),
+                Files.readAllBytes(new File(directory, "attachment-download@test").toPath()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMissingFiles() {
+        dispatch(new File(temporary.getRoot(), "missing.bin"));
+    }
+}
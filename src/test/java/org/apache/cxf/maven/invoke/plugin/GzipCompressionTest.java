@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Service;
+import javax.xml.ws.soap.SOAPBinding;
+
+import org.w3c.dom.Document;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.createMock;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class GzipCompressionTest {
+
+    private static final QName PORT = new QName("urn:test", "port");
+
+    /** Content-Encoding and Accept-Encoding of each request received */
+    private final List<String> encodings = new ArrayList<>();
+
+    private HttpServer server;
+
+    private static byte[] read(final InputStream input) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = input.read(buffer)) > 0) {
+            content.write(buffer, 0, read);
+        }
+
+        return content.toByteArray();
+    }
+
+    private static Source request(final int size) {
+        final StringBuilder request = new StringBuilder("<echo xmlns=\"urn:test\">");
+        for (int i = 0; i < size; i++) {
+            request.append("<value>compressible</value>");
+        }
+
+        return new StreamSource(new StringReader(request.append("</echo>").toString()));
+    }
+
+    private Dispatch<Source> dispatch(final GzipCompression compression) {
+        final Service service = Service.create(new QName("urn:test", "service"));
+        service.addPort(PORT, SOAPBinding.SOAP11HTTP_BINDING,
+                "http://localhost:" + server.getAddress().getPort() + "/echo");
+
+        final Dispatch<Source> dispatch = service.createDispatch(PORT, Source.class, Service.Mode.PAYLOAD);
+        compression.apply(dispatch);
+
+        return dispatch;
+    }
+
+    private void echo(final HttpExchange exchange) throws IOException {
+        final String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        synchronized (encodings) {
+            encodings.add(contentEncoding + " " + acceptEncoding);
+        }
+
+        final InputStream body = "gzip".equals(contentEncoding) ? new GZIPInputStream(exchange.getRequestBody())
+                : exchange.getRequestBody();
+        final String request = new String(read(body), StandardCharsets.UTF_8);
+        final byte[] response = request.replace("<echo", "<echoResponse").replace("</echo>", "</echoResponse>")
+                .getBytes(StandardCharsets.UTF_8);
+
+        final boolean compress = (acceptEncoding != null) && acceptEncoding.contains("gzip");
+        exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=UTF-8");
+        if (compress) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream output = compress ? new GZIPOutputStream(exchange.getResponseBody())
+                : exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", this::echo);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldCompressRequestsAboveThresholdAndAcceptCompressedResponses() throws Exception {
+        final GzipCompression compression = new GzipCompression(1024);
+        final Dispatch<Source> dispatch = dispatch(compression);
+
+        final Document small = StaxUtils.read(dispatch.invoke(request(1)));
+        final Document large = StaxUtils.read(dispatch.invoke(request(1000)));
+
+        assertEquals("Should receive the small response", 1,
+                small.getElementsByTagNameNS("urn:test", "value").getLength());
+        assertEquals("Should receive the large response", 1000,
+                large.getElementsByTagNameNS("urn:test", "value").getLength());
+
+        assertThat("Should not compress request below threshold", encodings.get(0), containsString("null gzip"));
+        assertThat("Should compress request above threshold", encodings.get(1), containsString("gzip gzip"));
+
+        assertThat("Should count the compressed request bytes", compression.sentBytes(),
+                lessThan(compression.requestBytes() / 10));
+        assertThat("Should count the compressed response bytes", compression.receivedBytes(),
+                lessThan(compression.responseBytes() / 10));
+        assertThat("Should describe the compression", compression.toString(),
+                containsString("GZIP: requests of " + compression.requestBytes() + " bytes sent as "
+                        + compression.sentBytes() + " bytes"));
+    }
+
+    @Test
+    public void shouldCompressOverAsynchronousTransport() throws Exception {
+        final GzipCompression compression = new GzipCompression(1024);
+        final Dispatch<Source> dispatch = dispatch(compression);
+        dispatch.getRequestContext().put(AsyncInvoker.USE_ASYNC_HTTP_CONDUIT, Boolean.TRUE);
+
+        final Document large = StaxUtils.read(dispatch.invokeAsync(request(1000)).get(10, TimeUnit.SECONDS));
+
+        assertEquals("Should receive the response", 1000,
+                large.getElementsByTagNameNS("urn:test", "value").getLength());
+        assertThat("Should compress request above threshold", encodings.get(0), containsString("gzip gzip"));
+        assertThat("Should count the compressed request bytes", compression.sentBytes(),
+                lessThan(compression.requestBytes() / 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonCxfDispatch() {
+        @SuppressWarnings("unchecked")
+        final Dispatch<Source> dispatch = createMock(Dispatch.class);
+
+        new GzipCompression(0).apply(dispatch);
+    }
+}
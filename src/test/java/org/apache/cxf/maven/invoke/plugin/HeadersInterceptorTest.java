@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Service;
+import javax.xml.ws.soap.SOAPBinding;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.headers.Header;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class HeadersInterceptorTest {
+
+    private static final QName PORT = new QName("urn:test", "port");
+
+    /** Requests received */
+    private final List<Document> requests = new ArrayList<>();
+
+    private HttpServer server;
+
+    private static byte[] read(final InputStream input) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = input.read(buffer)) > 0) {
+            content.write(buffer, 0, read);
+        }
+
+        return content.toByteArray();
+    }
+
+    private static Source request() {
+        return new StreamSource(new StringReader("<echo xmlns=\"urn:test\"><value>1</value></echo>"));
+    }
+
+    private void echo(final HttpExchange exchange) throws IOException {
+        final byte[] request = read(exchange.getRequestBody());
+        try {
+            synchronized (requests) {
+                requests.add(XmlUtil.parse(new String(request, StandardCharsets.UTF_8)).getOwnerDocument());
+            }
+        } catch (final Exception e) {
+            throw new IOException(e);
+        }
+
+        final byte[] response = ("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                + "<echoResponse xmlns=\"urn:test\"/></soap:Body></soap:Envelope>").getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=UTF-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", this::echo);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldAddHeadersToEveryRequest() throws Exception {
+        final Document document = XmlUtil.document();
+        final Element header1 = document.createElementNS("http://my.custom.header", "custom");
+        header1.setTextContent("hello");
+        final Element header2 = document.createElementNS("http://my.custom.header", "other");
+
+        final Service service = Service.create(new QName("urn:test", "service"));
+        service.addPort(PORT, SOAPBinding.SOAP11HTTP_BINDING,
+                "http://localhost:" + server.getAddress().getPort() + "/echo");
+        final Dispatch<Source> dispatch = service.createDispatch(PORT, Source.class, Service.Mode.PAYLOAD);
+
+        new HeadersInterceptor(new Node[] {header1, header2}).apply(dispatch);
+
+        StaxUtils.read(dispatch.invoke(request()));
+        StaxUtils.read(dispatch.invoke(request()));
+
+        assertEquals("Should send both requests", 2, requests.size());
+        for (final Document request : requests) {
+            assertEquals("Should add the headers once to each request", 2, request
+                    .getElementsByTagNameNS("http://schemas.xmlsoap.org/soap/envelope/", "Header").item(0)
+                    .getChildNodes().getLength());
+            assertEquals("Should add the given header", "hello",
+                    request.getElementsByTagNameNS("http://my.custom.header", "custom").item(0).getTextContent());
+            assertEquals("Should send the body", 1, request.getElementsByTagNameNS("urn:test", "value").getLength());
+        }
+    }
+
+    @Test
+    public void shouldAddNewElementsToEachMessage() throws InterruptedException {
+        final Element header = XmlUtil.document().createElementNS("http://my.custom.header", "custom");
+        header.setTextContent("hello");
+        final HeadersInterceptor interceptor = new HeadersInterceptor(new Node[] {header});
+
+        final SoapMessage first = new SoapMessage(new MessageImpl());
+        final SoapMessage second = new SoapMessage(new MessageImpl());
+        interceptor.handleMessage(first);
+        interceptor.handleMessage(second);
+
+        final Header added = first.getHeaders().get(0);
+        assertEquals("Should name the header by its element", new QName("http://my.custom.header", "custom"),
+                added.getName());
+        assertEquals("Should add a copy of the header", "hello", ((Element) added.getObject()).getTextContent());
+        assertNotSame("Should not share elements between messages", added.getObject(),
+                second.getHeaders().get(0).getObject());
+        assertNotSame("Should not send the given element", header, added.getObject());
+        assertSame("Should copy the elements of the thread", ((Node) added.getObject()).getOwnerDocument(),
+                ((Node) second.getHeaders().get(0).getObject()).getOwnerDocument());
+
+        final SoapMessage other = new SoapMessage(new MessageImpl());
+        final Thread thread = new Thread(() -> interceptor.handleMessage(other));
+        thread.start();
+        thread.join();
+
+        assertNotSame("Should not share documents between threads", ((Node) added.getObject()).getOwnerDocument(),
+                ((Node) other.getHeaders().get(0).getObject()).getOwnerDocument());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectHeadersThatAreNotElements() {
+        new HeadersInterceptor(new Node[] {XmlUtil.document().createTextNode("text")});
+    }
+}
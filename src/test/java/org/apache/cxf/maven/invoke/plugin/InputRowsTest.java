@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InputRowsTest {
+
+    @Test
+    public void shouldReadCsvRowsUsingHeader() throws IOException {
+        try (InputRows rows = InputRows.read(new StringReader("city,country\nBerlin,Germany\n\nHamburg,Germany\n"),
+                false)) {
+            assertEquals("Should read first row", row("city", "Berlin", "country", "Germany"), rows.next());
+            assertEquals("Should skip blank lines", row("city", "Hamburg", "country", "Germany"), rows.next());
+            assertFalse("Should have no more rows", rows.hasNext());
+        }
+    }
+
+    @Test
+    public void shouldReadQuotedCsvValues() throws IOException {
+        try (InputRows rows = InputRows.read(
+                new StringReader("name,note\n\"Doe, John\",\"said \"\"hi\"\"\nand left\"\nnext,row\n"), false)) {
+            assertEquals("Should read quoted commas, quotes and line breaks",
+                    row("name", "Doe, John", "note", "said \"hi\"\nand left"), rows.next());
+            assertEquals("Should track lines of multi line records", 3, rows.line());
+            assertEquals("Should continue after multi line record", row("name", "next", "note", "row"), rows.next());
+        }
+    }
+
+    @Test
+    public void shouldRejectMalformedCsvRecordsAndContinue() throws IOException {
+        try (InputRows rows = InputRows.read(new StringReader("a,b\n1,2,3\n\"4\"x,5\n6,7\n"), false)) {
+            try {
+                rows.next();
+                fail("Expected IllegalArgumentException");
+            } catch (final IllegalArgumentException expected) {
+                assertThat("Should reject records with wrong number of values", expected.getMessage(),
+                        containsString("has 3 values, but the header has 2 columns"));
+            }
+
+            try {
+                rows.next();
+                fail("Expected IllegalArgumentException");
+            } catch (final IllegalArgumentException expected) {
+                assertThat("Should reject text after closing quote", expected.getMessage(),
+                        containsString("Unexpected character after quoted CSV value on line 3"));
+            }
+
+            assertEquals("Should continue after malformed records", row("a", "6", "b", "7"), rows.next());
+            assertFalse("Should have no more rows", rows.hasNext());
+        }
+    }
+
+    @Test
+    public void shouldReadMalformedMultiLineCsvRecordToItsEnd() throws IOException {
+        try (InputRows rows = InputRows.read(
+                new StringReader("a,b\n\"first\nline\"x,\"second\nthird\"\n1,2\n"), false)) {
+            try {
+                rows.next();
+                fail("Expected IllegalArgumentException");
+            } catch (final IllegalArgumentException expected) {
+                assertThat("Should reject text after closing quote", expected.getMessage(),
+                        containsString("Unexpected character after quoted CSV value on line 3"));
+            }
+
+            assertEquals("Should read all lines of the malformed record", 4, rows.line());
+            assertEquals("Should continue with the next record", row("a", "1", "b", "2"), rows.next());
+            assertFalse("Should have no more rows", rows.hasNext());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRequireCsvHeader() throws IOException {
+        InputRows.read(new StringReader("\n"), false).close();
+    }
+
+    @Test
+    public void shouldReadJsonLines() throws IOException {
+        final String input = "{\"city\": \"Berlin\", \"zip\": 10115, \"capital\": true}\n\n"
+                + "{\"city\":\"K\\u00f6ln\",\"zip\":null}\n";
+
+        try (InputRows rows = InputRows.read(new StringReader(input), true)) {
+            assertEquals("Should read strings, numbers and booleans",
+                    row("city", "Berlin", "zip", "10115", "capital", "true"), rows.next());
+
+            final Map<String, String> second = rows.next();
+            assertEquals("Should decode escapes", "Köln", second.get("city"));
+            assertTrue("Should keep null values", second.containsKey("zip"));
+            assertNull("Should read null as null", second.get("zip"));
+
+            assertFalse("Should have no more rows", rows.hasNext());
+        }
+    }
+
+    @Test
+    public void shouldRejectNestedJsonAndContinue() throws IOException {
+        try (InputRows rows = InputRows.read(new StringReader("{\"a\": {\"b\": 1}}\n{\"a\": 2}\n"), true)) {
+            try {
+                rows.next();
+                fail("Expected IllegalArgumentException");
+            } catch (final IllegalArgumentException expected) {
+                assertThat("Should report the line", expected.getMessage(),
+                        containsString("Unable to parse JSON on line 1"));
+            }
+
+            assertEquals("Should continue after malformed line", row("a", "2"), rows.next());
+        }
+    }
+
+    private static Map<String, String> row(final String... namesAndValues) {
+        final Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            row.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+
+        return row;
+    }
+}
@@ -18,21 +18,55 @@
  */
 package org.apache.cxf.maven.invoke.plugin;
 
-import javax.xml.transform.Transformer;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.ws.Dispatch;
 
 import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
 import org.easymock.EasyMockRule;
+import org.easymock.IArgumentMatcher;
 import org.easymock.Mock;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reportMatcher;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest(InvokeSoap.class)
@@ -41,18 +75,177 @@ public class InvokeSoapExecutionTest {
     @Rule
     public EasyMockRule easyMock = new EasyMockRule(this);
 
+    @Rule
+    public TemporaryFolder workdir = new TemporaryFolder();
+
+    @Mock
+    private Dispatch<Source> dispatch;
+
     @Mock
     private Document document;
 
     @Mock
-    private Transformer transformer;
+    private MojoExecution mojoExecution;
+
+    private final Node node = XmlUtil.document().createElementNS("urn:test", "echo");
+
+    @Test
+    public void shouldExecuteEachRequestInBatchMode() throws Exception {
+        final InvokeSoap invokeSoap = PowerMock.createPartialMockAndInvokeDefaultConstructor(InvokeSoap.class,
+                new String[] {"createDispatch", "invokeService", "extractProperties", "shouldRepeat"});
+        invokeSoap.serviceCache = new ServiceCache();
+        invokeSoap.mojoExecution = mojoExecution;
+
+        invokeSoap.batch = true;
+        invokeSoap.parallelism = 2;
+        invokeSoap.request = new Node[] {node, node, node};
+
+        expect(mojoExecution.getExecutionId()).andReturn("test").anyTimes();
+        expect(invokeSoap.createDispatch()).andReturn(dispatch).times(2);
+        for (int i = 1; i <= 3; i++) {
+            expect(invokeSoap.invokeService(isA(InvokeSoap.Worker.class), payloadOf(node), eq("-" + i), eq(1)))
+                    .andReturn(document);
+            invokeSoap.extractProperties(document, "." + i);
+            expectLastCall().andVoid();
+        }
+        expect(invokeSoap.shouldRepeat(document)).andReturn(false).times(3);
+
+        replay(mojoExecution);
+        PowerMock.replay(invokeSoap);
+
+        invokeSoap.execute();
+
+        PowerMock.verify(invokeSoap);
+    }
+
+    @Test
+    public void shouldInvokeEachRowOfInputFile() throws Exception {
+        final InvokeSoap invokeSoap = PowerMock.createPartialMockAndInvokeDefaultConstructor(InvokeSoap.class,
+                new String[] {"createDispatch", "invokeService", "shouldRepeat"});
+        invokeSoap.serviceCache = new ServiceCache();
+        invokeSoap.mojoExecution = mojoExecution;
+        invokeSoap.requestPath = workdir.newFolder();
+
+        invokeSoap.parallelism = 2;
+        invokeSoap.request = new Node[] {XmlUtil.parse("<echo>#{value}</echo>")};
+        invokeSoap.inputFile = workdir.newFile("input.csv");
+        Files.write(invokeSoap.inputFile.toPath(), "value\na\nb\nc\n".getBytes(StandardCharsets.UTF_8));
+
+        final Capture<Payload> payloads = newCapture(CaptureType.ALL);
+
+        expect(mojoExecution.getExecutionId()).andReturn("test").anyTimes();
+        expect(invokeSoap.createDispatch()).andReturn(dispatch).times(2);
+        for (int i = 1; i <= 3; i++) {
+            expect(invokeSoap.invokeService(isA(InvokeSoap.Worker.class), capture(payloads), eq("-" + i), eq(1)))
+                    .andReturn(document);
+        }
+        expect(invokeSoap.shouldRepeat(document)).andReturn(false).times(3);
+
+        replay(mojoExecution);
+        PowerMock.replay(invokeSoap);
+
+        invokeSoap.execute();
+
+        PowerMock.verify(invokeSoap);
+
+        assertThat("Should create request for each row",
+                payloads.getValues().stream().map(InvokeSoapExecutionTest::text).collect(Collectors.toList()),
+                containsInAnyOrder("a", "b", "c"));
+
+        final List<String> results = Files.readAllLines(
+                new File(new File(invokeSoap.requestPath, "test"), "results.csv").toPath(), StandardCharsets.UTF_8);
+        assertThat("Should record outcome of each row",
+                results.stream().map(l -> l.replaceFirst(",\\d+,", ",_,")).collect(Collectors.toList()),
+                containsInAnyOrder("row,latency,outcome", "1,_,OK", "2,_,OK", "3,_,OK"));
+    }
+
+    @Test
+    public void shouldRecordMalformedRowsAndContinue() throws Exception {
+        final InvokeSoap invokeSoap = PowerMock.createPartialMockAndInvokeDefaultConstructor(InvokeSoap.class,
+                new String[] {"createDispatch", "invokeService", "shouldRepeat"});
+        invokeSoap.serviceCache = new ServiceCache();
+        invokeSoap.mojoExecution = mojoExecution;
+        invokeSoap.requestPath = workdir.newFolder();
+
+        invokeSoap.request = new Node[] {XmlUtil.parse("<echo>#{value}</echo>")};
+        invokeSoap.inputFile = workdir.newFile("input.jsonl");
+        Files.write(invokeSoap.inputFile.toPath(),
+                "{\"value\": \"a\"}\n{\"value\": \"b\"\n{\"value\": \"c\"}\n".getBytes(StandardCharsets.UTF_8));
+
+        final Capture<Payload> payloads = newCapture(CaptureType.ALL);
+
+        expect(mojoExecution.getExecutionId()).andReturn("test").anyTimes();
+        expect(invokeSoap.createDispatch()).andReturn(dispatch);
+        for (final int i : new int[] {1, 3}) {
+            expect(invokeSoap.invokeService(isA(InvokeSoap.Worker.class), capture(payloads), eq("-" + i), eq(1)))
+                    .andReturn(document);
+        }
+        expect(invokeSoap.shouldRepeat(document)).andReturn(false).times(2);
+
+        replay(mojoExecution);
+        PowerMock.replay(invokeSoap);
+
+        try {
+            invokeSoap.execute();
+            fail("Expected MojoExecutionException");
+        } catch (final MojoExecutionException expected) {
+            assertThat("Should fail the build after all rows", expected.getMessage(),
+                    containsString("1 of 3 requests failed"));
+        }
+
+        PowerMock.verify(invokeSoap);
+
+        assertThat("Should send the rows around the malformed one",
+                payloads.getValues().stream().map(InvokeSoapExecutionTest::text).collect(Collectors.toList()),
+                contains("a", "c"));
+
+        final List<String> results = Files.readAllLines(
+                new File(new File(invokeSoap.requestPath, "test"), "results.csv").toPath(), StandardCharsets.UTF_8);
+        assertThat("Should record the malformed row as failed", results,
+                hasItem(allOf(startsWith("2,0,"), containsString("Unable to parse JSON on line 2"))));
+        assertThat("Should record the other rows", results, hasItems(startsWith("1,"), startsWith("3,")));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldStopWaitingForRowsThatFailToBeSent() throws Exception {
+        final InvokeSoap invokeSoap = new InvokeSoap();
+        invokeSoap.mojoExecution = mojoExecution;
+        invokeSoap.requestPath = workdir.newFolder();
+
+        invokeSoap.request = new Node[] {XmlUtil.parse("<echo>#{value}</echo>")};
+        invokeSoap.inputFile = workdir.newFile("input.csv");
+        Files.write(invokeSoap.inputFile.toPath(), "value\na\nb\n".getBytes(StandardCharsets.UTF_8));
+
+        expect(mojoExecution.getExecutionId()).andReturn("test").anyTimes();
+        replay(mojoExecution);
+
+        final CompletableFuture<Document> first = new CompletableFuture<>();
+        try {
+            invokeSoap.invokeRows((payload, suffix) -> {
+                if ("-1".equals(suffix)) {
+                    return first;
+                }
+
+                first.complete(document);
+                throw new IllegalStateException("Unable to send");
+            });
+            fail("Expected IllegalStateException");
+        } catch (final IllegalStateException expected) {
+            assertEquals("Should propagate the failure to send", "Unable to send", expected.getMessage());
+        }
+    }
 
     @Test
     public void shouldExecuteOneTime() throws Exception {
-        final InvokeSoap invokeSoap = PowerMock.createPartialMock(InvokeSoap.class,
-                new String[] {"invokeService", "extractProperties", "shouldRepeat"}, transformer);
+        final InvokeSoap invokeSoap = PowerMock.createPartialMockAndInvokeDefaultConstructor(InvokeSoap.class,
+                new String[] {"createDispatch", "invokeService", "extractProperties", "shouldRepeat"});
+        invokeSoap.serviceCache = new ServiceCache();
+
+        expect(invokeSoap.createDispatch()).andReturn(dispatch);
+        invokeSoap.request = new Node[] {node};
 
-        expect(invokeSoap.invokeService()).andReturn(document);
+        expect(invokeSoap.invokeService(isA(InvokeSoap.Worker.class), payloadOf(node), eq(""), eq(1)))
+                .andReturn(document);
         expect(invokeSoap.shouldRepeat(document)).andReturn(false);
         invokeSoap.extractProperties(document);
         expectLastCall().andVoid();
@@ -66,10 +259,17 @@ public class InvokeSoapExecutionTest {
 
     @Test
     public void shouldExecuteUntilRepeatConditionReturnsFalse() throws Exception {
-        final InvokeSoap invokeSoap = PowerMock.createPartialMock(InvokeSoap.class,
-                new String[] {"invokeService", "extractProperties", "shouldRepeat"}, transformer);
+        final InvokeSoap invokeSoap = PowerMock.createPartialMockAndInvokeDefaultConstructor(InvokeSoap.class,
+                new String[] {"createDispatch", "invokeService", "extractProperties", "shouldRepeat"});
+        invokeSoap.serviceCache = new ServiceCache();
 
-        expect(invokeSoap.invokeService()).andReturn(document).times(3);
+        expect(invokeSoap.createDispatch()).andReturn(dispatch).once();
+        invokeSoap.request = new Node[] {node};
+
+        for (int i = 1; i <= 3; i++) {
+            expect(invokeSoap.invokeService(isA(InvokeSoap.Worker.class), payloadOf(node), eq(""), eq(i)))
+                    .andReturn(document);
+        }
         expect(invokeSoap.shouldRepeat(document)).andReturn(true).andReturn(true).andReturn(false);
         invokeSoap.extractProperties(document);
         expectLastCall().andVoid();
@@ -81,4 +281,31 @@ public class InvokeSoapExecutionTest {
         PowerMock.verify(invokeSoap);
     }
 
+    private static Payload payloadOf(final Node node) {
+        reportMatcher(new IArgumentMatcher() {
+            @Override
+            public void appendTo(final StringBuffer buffer) {
+                buffer.append("payloadOf(").append(node).append(')');
+            }
+
+            @Override
+            public boolean matches(final Object argument) {
+                return (argument instanceof Payload.Bytes) && Arrays.equals(((Payload.Bytes) argument).bytes(),
+                        XmlUtil.toString(node).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        return null;
+    }
+
+    private static String text(final Payload payload) {
+        final DOMResult result = new DOMResult();
+        try {
+            XmlUtil.transformer().transform(payload.source(), result);
+        } catch (final TransformerException e) {
+            throw new AssertionError(e);
+        }
+
+        return ((Document) result.getNode()).getDocumentElement().getTextContent();
+    }
 }
@@ -18,23 +18,30 @@
  */
 package org.apache.cxf.maven.invoke.plugin;
 
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import javax.xml.namespace.QName;
+import javax.xml.soap.SOAPFactory;
+import javax.xml.soap.SOAPFault;
 import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.BindingProvider;
 import javax.xml.ws.Dispatch;
 import javax.xml.ws.Service;
 import javax.xml.ws.handler.MessageContext;
+import javax.xml.ws.soap.SOAPFaultException;
 
 import org.w3c.dom.Document;
-import org.w3c.dom.Node;
 
 import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.easymock.EasyMockRule;
 import org.easymock.Mock;
 import org.junit.Rule;
@@ -46,15 +53,18 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import static org.easymock.EasyMock.expect;
-import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
-import static org.easymock.EasyMock.same;
 import static org.easymock.EasyMock.verify;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.collection.IsMapContaining.hasEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
-import static org.powermock.api.easymock.PowerMock.mockStatic;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest(InvokeSoap.class)
@@ -72,68 +82,203 @@ public class InvokeSoapInvocationTest {
     @Mock
     private MojoExecution mojoExecution;
 
-    @Mock
-    private Node node;
-
     @Mock
     private Service service;
 
     private final QName somePort = new QName("test:namespace", "test-port");
 
-    @Mock
-    private Transformer transformer;
-
     @Test
-    public void shouldInvokeService() throws Exception {
-        final InvokeSoap invokeSoap = PowerMock.createPartialMock(InvokeSoap.class,
-                new String[] {"createService", "determinePort", "shouldRepeat"}, transformer);
-
-        mockStatic(InvokeSoap.class);
+    public void shouldCreateDispatch() throws Exception {
+        final InvokeSoap invokeSoap = PowerMock.createPartialMockAndInvokeDefaultConstructor(InvokeSoap.class,
+                new String[] {"createService", "determinePort"});
+        invokeSoap.serviceCache = new ServiceCache();
 
-        invokeSoap.mojoExecution = mojoExecution;
-        invokeSoap.requestPath = workdir.newFolder();
-        invokeSoap.request = new Node[] {node};
         invokeSoap.namespace = "uri:namespace";
         invokeSoap.operation = "operation";
-
-        final DOMSource request = new DOMSource(node);
-        final DOMSource response = new DOMSource(node);
-
-        expect(InvokeSoap.createRequest(isA(Node.class))).andReturn(request);
+        invokeSoap.serviceName = "service";
+        invokeSoap.endpoint = "http://endpoint";
 
         expect(invokeSoap.createService()).andReturn(service);
 
         expect(invokeSoap.determinePort(service)).andReturn(somePort);
 
-        expect(mojoExecution.getExecutionId()).andReturn("test");
-
         expect(service.createDispatch(somePort, Source.class, Service.Mode.PAYLOAD)).andReturn(dispatch);
 
         final Map<String, Object> context = new HashMap<>();
         expect(dispatch.getRequestContext()).andReturn(context);
 
-        expect(dispatch.invoke(isA(DOMSource.class))).andReturn(response);
+        replay(invokeSoap, service, dispatch);
 
-        transformer.transform(same(request), isA(StreamResult.class));
-        expectLastCall().andVoid();
+        final Dispatch<Source> created = invokeSoap.createDispatch();
 
-        transformer.transform(same(response), isA(DOMResult.class));
-        expectLastCall().andVoid();
+        assertSame("Should return created dispatch", dispatch, created);
 
-        transformer.transform(isA(DOMSource.class), isA(StreamResult.class));
-        expectLastCall().andVoid();
+        assertThat("Operation should be configured in message context", context,
+                hasEntry(MessageContext.WSDL_OPERATION, new QName("uri:namespace", "operation")));
 
-        PowerMock.replay(InvokeSoap.class);
-        replay(invokeSoap, mojoExecution, service, dispatch, transformer);
+        assertThat("Endpoint should be configured in message context", context,
+                hasEntry(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, "http://endpoint"));
 
-        final Document result = invokeSoap.invokeService();
+        verify(invokeSoap, service, dispatch);
+    }
+
+    @Test
+    public void shouldGiveUpRepeatingAfterMaximumAttempts() throws Exception {
+        final InvokeSoap invokeSoap = PowerMock.createPartialMockAndInvokeDefaultConstructor(InvokeSoap.class,
+                new String[] {"shouldRepeat"});
+
+        invokeSoap.mojoExecution = mojoExecution;
+        invokeSoap.requestPath = workdir.newFolder();
+        invokeSoap.artifactPolicy = InvokeSoap.ArtifactPolicy.NEVER;
+        invokeSoap.repeatInterval = 1;
+        invokeSoap.repeatMultiplier = 2;
+        invokeSoap.repeatMaxAttempts = 3;
+        invokeSoap.operation = "operation";
+
+        expect(mojoExecution.getExecutionId()).andReturn("test").anyTimes();
+        expect(dispatch.invoke(isA(Source.class))).andAnswer(() -> new DOMSource(XmlUtil.parse("<pending/>")))
+                .times(3);
+        expect(invokeSoap.shouldRepeat(isA(Document.class))).andReturn(true).times(3);
+
+        replay(invokeSoap, mojoExecution, dispatch);
+
+        try {
+            invokeSoap.invokeUntilDone(new InvokeSoap.Worker(dispatch),
+                    new Payload.Bytes("<request/>".getBytes(StandardCharsets.UTF_8)), "");
+            fail("Expected MojoExecutionException");
+        } catch (final MojoExecutionException expected) {
+            assertThat("Should explain why repeating stopped", expected.getMessage(),
+                    containsString("Gave up repeating `operation` after reaching the maximum of 3 attempts"));
+        }
+
+        verify(invokeSoap, mojoExecution, dispatch);
+    }
+
+    @Test
+    public void shouldInvokeService() throws Exception {
+        final InvokeSoap invokeSoap = PowerMock.createPartialMockAndInvokeDefaultConstructor(InvokeSoap.class,
+                new String[] {"shouldRepeat"});
+
+        invokeSoap.mojoExecution = mojoExecution;
+        invokeSoap.requestPath = workdir.newFolder();
+        final Payload request = new Payload.Bytes("<request/>".getBytes(StandardCharsets.UTF_8));
+        final DOMSource response = new DOMSource(XmlUtil.parse("<response>value</response>"));
+
+        expect(mojoExecution.getExecutionId()).andReturn("test");
+
+        expect(dispatch.invoke(isA(StreamSource.class))).andReturn(response);
+
+        replay(invokeSoap, mojoExecution, dispatch);
+
+        final Document result = invokeSoap.invokeService(new InvokeSoap.Worker(dispatch), request, "");
 
         assertNotNull("Should return result", result);
+        assertEquals("Should read the response", "value", result.getDocumentElement().getTextContent());
+        assertEquals("Should store the request as is", "<request/>",
+                new String(Files.readAllBytes(new File(invokeSoap.requestPath, "test/request.xml").toPath()),
+                        StandardCharsets.UTF_8));
+        assertThat("Should store the response",
+                new String(Files.readAllBytes(new File(invokeSoap.requestPath, "test/response.xml").toPath()),
+                        StandardCharsets.UTF_8),
+                containsString("<response>value</response>"));
+
+        verify(invokeSoap, mojoExecution, dispatch);
+    }
 
-        assertThat("Operation should be configured in message context", context,
-                hasEntry(MessageContext.WSDL_OPERATION, new QName("uri:namespace", "operation")));
+    @Test
+    public void shouldKeepResponseOfEachIteration() throws Exception {
+        final InvokeSoap invokeSoap = new InvokeSoap();
+
+        invokeSoap.mojoExecution = mojoExecution;
+        invokeSoap.requestPath = workdir.newFolder();
+        invokeSoap.keepIterations = true;
+        final Payload request = new Payload.Bytes("<request/>".getBytes(StandardCharsets.UTF_8));
+
+        expect(mojoExecution.getExecutionId()).andReturn("test").times(2);
+
+        expect(dispatch.invoke(isA(StreamSource.class)))
+                .andReturn(new DOMSource(XmlUtil.parse("<response>1</response>")))
+                .andReturn(new DOMSource(XmlUtil.parse("<response>2</response>")));
+
+        replay(mojoExecution, dispatch);
+
+        final InvokeSoap.Worker worker = new InvokeSoap.Worker(dispatch);
+        invokeSoap.invokeService(worker, request, "-3", 1);
+        invokeSoap.invokeService(worker, request, "-3", 2);
+
+        final File executionDir = new File(invokeSoap.requestPath, "test");
+        assertTrue("Should store the request once", new File(executionDir, "request-3.xml").isFile());
+        assertThat("Should keep the first response",
+                new String(Files.readAllBytes(new File(executionDir, "response-3-1.xml").toPath()),
+                        StandardCharsets.UTF_8),
+                containsString("<response>1</response>"));
+        assertThat("Should keep the second response",
+                new String(Files.readAllBytes(new File(executionDir, "response-3-2.xml").toPath()),
+                        StandardCharsets.UTF_8),
+                containsString("<response>2</response>"));
+
+        verify(mojoExecution, dispatch);
+    }
+
+    @Test
+    public void shouldStoreOnlyFailedInvocationsOnFault() throws Exception {
+        final InvokeSoap invokeSoap = new InvokeSoap();
 
-        verify(invokeSoap, mojoExecution, service, dispatch, transformer);
+        invokeSoap.mojoExecution = mojoExecution;
+        invokeSoap.requestPath = workdir.newFolder();
+        invokeSoap.artifactPolicy = InvokeSoap.ArtifactPolicy.ON_FAULT;
+        final Payload request = new Payload.Bytes("<request/>".getBytes(StandardCharsets.UTF_8));
+
+        final SOAPFault fault = SOAPFactory.newInstance().createFault("Failed",
+                new QName("http://schemas.xmlsoap.org/soap/envelope/", "Server"));
+
+        expect(mojoExecution.getExecutionId()).andReturn("test").times(2);
+        expect(dispatch.invoke(isA(Source.class))).andReturn(new DOMSource(XmlUtil.parse("<response/>")))
+                .andThrow(new SOAPFaultException(fault));
+
+        replay(mojoExecution, dispatch);
+
+        final InvokeSoap.Worker worker = new InvokeSoap.Worker(dispatch);
+        invokeSoap.invokeService(worker, request, "-1", 1);
+        try {
+            invokeSoap.invokeService(worker, request, "-2", 1);
+            fail("Expected SOAPFaultException");
+        } catch (final SOAPFaultException expected) {
+            // expected
+        }
+
+        final File executionDir = new File(invokeSoap.requestPath, "test");
+        assertFalse("Should not store successful request", new File(executionDir, "request-1.xml").exists());
+        assertFalse("Should not store successful response", new File(executionDir, "response-1.xml").exists());
+        assertEquals("Should store failed request", "<request/>",
+                new String(Files.readAllBytes(new File(executionDir, "request-2.xml").toPath()),
+                        StandardCharsets.UTF_8));
+        assertThat("Should store the fault as response",
+                new String(Files.readAllBytes(new File(executionDir, "response-2.xml").toPath()),
+                        StandardCharsets.UTF_8),
+                containsString("Failed"));
+
+        verify(mojoExecution, dispatch);
     }
 
+    @Test
+    public void shouldStoreWholeResponseAndProjectItWhenStreaming() throws Exception {
+        final InvokeSoap invokeSoap = new InvokeSoap();
+        invokeSoap.projection = new ResponseProjection(Arrays.asList("//*[local-name()='status']"));
+
+        final File executionDir = workdir.newFolder();
+        final String response = "<response><items><item>1</item><item>2</item></items><status>DONE</status></response>";
+
+        final Document projected = invokeSoap.storeResponse(executionDir,
+                new StreamSource(new StringReader(response)), "-1");
+
+        assertEquals("Should project the selected element", "DONE",
+                XmlUtil.xpathExpression("//*[local-name()='status']").evaluate(projected));
+        assertEquals("Should not keep elements that are not selected", "",
+                XmlUtil.xpathExpression("//item").evaluate(projected));
+        assertThat("Should store the whole response",
+                new String(Files.readAllBytes(new File(executionDir, "response-1.xml").toPath()),
+                        StandardCharsets.UTF_8),
+                containsString("<items><item>1</item><item>2</item></items>"));
+    }
 }
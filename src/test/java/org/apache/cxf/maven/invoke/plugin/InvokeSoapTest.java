@@ -18,8 +18,11 @@
  */
 package org.apache.cxf.maven.invoke.plugin;
 
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Properties;
 
 import static java.util.Arrays.asList;
@@ -27,7 +30,7 @@ import static java.util.Collections.singleton;
 
 import javax.xml.namespace.QName;
 import javax.xml.transform.Source;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
 import javax.xml.ws.Service;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
@@ -38,6 +41,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
 import org.apache.cxf.feature.LoggingFeature;
+import org.apache.cxf.helpers.IOUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
@@ -54,11 +58,11 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
-import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
@@ -86,9 +90,6 @@ public class InvokeSoapTest {
     @Mock
     private Node header;
 
-    @Mock
-    private Node node;
-
     @Mock
     private MavenProject project;
 
@@ -140,13 +141,22 @@ public class InvokeSoapTest {
         invokeSoap.determinePort(service);
     }
 
+    @Test(expected = MojoExecutionException.class)
+    public void shouldComplainIfNoRequestIsGiven() throws MojoExecutionException {
+        new InvokeSoap().requestPayload();
+    }
+
     @Test
-    public void shouldCreateRequest() {
-        final Source source = InvokeSoap.createRequest(node);
+    public void shouldCreateRequest() throws Exception {
+        final Payload.Bytes payload = InvokeSoap.createRequest(XmlUtil.parse("<request xmlns=\"urn:test\"/>"));
 
-        assertThat("Should create DOMSource from given node", source, instanceOf(DOMSource.class));
+        final byte[] serialized = payload.bytes();
+        assertSame("Should serialize the node only once", serialized, payload.bytes());
 
-        assertSame("Should contain the same given node", node, ((DOMSource) source).getNode());
+        final Source source = payload.source();
+        assertThat("Should send the serialized node", source, instanceOf(StreamSource.class));
+        assertArrayEquals("Should send the same bytes that are stored", serialized,
+                IOUtils.readBytesFromStream(((StreamSource) source).getInputStream()));
     }
 
     @Test
@@ -170,7 +180,7 @@ public class InvokeSoapTest {
     }
 
     @Test
-    public void shouldCreateServicesWithHeaders() throws MojoExecutionException, MalformedURLException {
+    public void shouldCreateServicesWithoutHandlersForHeaders() throws MojoExecutionException, MalformedURLException {
         final InvokeSoap invokeSoap = new InvokeSoap();
         final URI wsdl = URI.create("file:uri:wsdl");
 
@@ -182,8 +192,6 @@ public class InvokeSoapTest {
         mockStatic(Service.class);
 
         expect(Service.create(wsdl.toURL(), new QName("test:namespace", "test-service"))).andReturn(service);
-        service.setHandlerResolver(isA(HeadersHandlerResolver.class));
-        expectLastCall().andVoid();
 
         PowerMock.replay(Service.class);
 
@@ -191,11 +199,35 @@ public class InvokeSoapTest {
 
         final Service created = invokeSoap.createService();
 
-        assertSame(service, created);
+        assertSame("Headers should be added by the dispatch, not by a handler on the service", service, created);
 
         verify(service);
     }
 
+    @Test
+    public void shouldCreateServicesOnlyOnceViaCache() throws MojoExecutionException, MalformedURLException {
+        final InvokeSoap invokeSoap = new InvokeSoap();
+        final URI wsdl = URI.create("file:uri:wsdl");
+
+        invokeSoap.wsdl = wsdl;
+        invokeSoap.namespace = "test:namespace";
+        invokeSoap.serviceName = "test-service";
+        invokeSoap.serviceCache = new ServiceCache();
+
+        mockStatic(Service.class);
+
+        expect(Service.create(wsdl.toURL(), new QName("test:namespace", "test-service"))).andReturn(service).once();
+
+        PowerMock.replay(Service.class);
+
+        assertSame(service, invokeSoap.service());
+        assertSame(service, invokeSoap.service());
+
+        PowerMock.verify(Service.class);
+
+        assertEquals("Second lookup should hit the cache", 1, invokeSoap.serviceCache.hits());
+    }
+
     @Test
     public void shouldExtractPropertiesIfRequested() throws MojoExecutionException {
         final InvokeSoap invokeSoap = new InvokeSoap();
@@ -267,6 +299,46 @@ public class InvokeSoapTest {
         verify(repeatUntilExpression);
     }
 
+    @Test
+    public void shouldStoreArtifactsAccordingToPolicy() {
+        final InvokeSoap invokeSoap = new InvokeSoap();
+
+        assertTrue("Should store every invocation by default", invokeSoap.storeArtifacts());
+
+        invokeSoap.artifactPolicy = InvokeSoap.ArtifactPolicy.SAMPLED;
+        invokeSoap.artifactSampling = 3;
+        assertEquals("Should store every third invocation", asList(true, false, false, true, false),
+                asList(invokeSoap.storeArtifacts(), invokeSoap.storeArtifacts(), invokeSoap.storeArtifacts(),
+                        invokeSoap.storeArtifacts(), invokeSoap.storeArtifacts()));
+
+        invokeSoap.artifactPolicy = InvokeSoap.ArtifactPolicy.NEVER;
+        assertFalse("Should not store invocations", invokeSoap.storeArtifacts());
+
+        invokeSoap.artifactPolicy = InvokeSoap.ArtifactPolicy.ON_FAULT;
+        assertFalse("Should not store invocations unless they fail", invokeSoap.storeArtifacts());
+    }
+
+    @Test
+    public void shouldStreamRequestFile() throws Exception {
+        final InvokeSoap invokeSoap = new InvokeSoap();
+        invokeSoap.requestFile = workdir.newFile("request.xml");
+        Files.write(invokeSoap.requestFile.toPath(), "<test/>".getBytes(StandardCharsets.UTF_8));
+
+        final Payload payload = invokeSoap.requestPayload();
+        final Source source = payload.source();
+
+        assertThat("Should stream the request from the file", source, instanceOf(StreamSource.class));
+        assertEquals("Should read the given file", invokeSoap.requestFile.toURI().toString(),
+                source.getSystemId());
+
+        final File executionDir = workdir.newFolder();
+        invokeSoap.storeRequest(executionDir, payload, "");
+
+        assertEquals("Should copy the file as the stored request", "<test/>",
+                new String(Files.readAllBytes(new File(executionDir, "request.xml").toPath()),
+                        StandardCharsets.UTF_8));
+    }
+
     @Test
     public void shouldUseTheGivenPortName() throws MojoExecutionException {
         final InvokeSoap invokeSoap = new InvokeSoap();
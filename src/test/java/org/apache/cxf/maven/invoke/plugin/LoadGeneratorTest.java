@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.ws.WebServiceException;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class LoadGeneratorTest {
+
+    private static final Payload PAYLOAD = new Payload.Bytes("<a/>".getBytes());
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @Test
+    public void shouldAccountForDelayedRequestsAtFixedRate() throws InterruptedException {
+        final AtomicInteger sent = new AtomicInteger();
+
+        // the first response takes 200 ms, during which the requests scheduled every 10 ms cannot be sent
+        final LoadGenerator generator = new LoadGenerator(request -> {
+            final CompletableFuture<Object> response = new CompletableFuture<>();
+            if (sent.incrementAndGet() == 1) {
+                scheduler.schedule(() -> response.complete(null), 200, TimeUnit.MILLISECONDS);
+            } else {
+                response.complete(null);
+            }
+
+            return response;
+        }, 1, 100, 0, 20);
+
+        final LoadGenerator.Result result = generator.run(PAYLOAD);
+
+        assertEquals("Should send all requests", 20, result.requests);
+        assertThat("Latency of requests waiting for the slow one should be measured from their scheduled time",
+                result.latency.getValueAtPercentile(50), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(50)));
+    }
+
+    @Test
+    public void shouldCountErrorsByType() throws InterruptedException {
+        final AtomicInteger sent = new AtomicInteger();
+
+        final LoadGenerator generator = new LoadGenerator(request -> {
+            if (sent.incrementAndGet() % 2 == 0) {
+                return InvokeSoap.failed(new WebServiceException("expected"));
+            }
+
+            return CompletableFuture.completedFuture(null);
+        }, 4, 0, 0, 10);
+
+        final LoadGenerator.Result result = generator.run(PAYLOAD);
+
+        assertEquals("Should count errors", 5, result.errorCount());
+        assertEquals("Should count errors by type", Long.valueOf(5), result.errors.get("WebServiceException"));
+        assertEquals("Should record latency of all requests", 10, result.latency.getTotalCount());
+    }
+
+    @Test
+    public void shouldReportPercentilesThroughputAndErrors() throws InterruptedException {
+        final LoadGenerator.Result result = new LoadGenerator(request -> CompletableFuture.completedFuture(null), 1,
+                0, 0, 5).run(PAYLOAD);
+
+        final String report = result.report();
+
+        assertThat("Should report mode", report, containsString("Mode: fixed concurrency of 1"));
+        assertThat("Should report requests", report, containsString("Requests: 5"));
+        assertThat("Should report errors", report, containsString("Errors: 0"));
+        assertThat("Should report throughput", report, containsString("Throughput: "));
+        assertThat("Should report percentiles", report, containsString("p50="));
+        assertThat("Should report percentiles", report, containsString("p99.9="));
+        assertThat("Should report maximum", report, containsString("max="));
+        assertThat("Should include latency distribution", report, containsString("Percentile"));
+    }
+
+    @Test
+    public void shouldStopWhenDurationElapses() throws InterruptedException {
+        final long start = System.nanoTime();
+
+        final LoadGenerator.Result result = new LoadGenerator(request -> CompletableFuture.completedFuture(null), 1,
+                50, 200, 0).run(PAYLOAD);
+
+        assertThat("Should run for the given duration", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                greaterThanOrEqualTo(150L));
+        assertEquals("Should send requests at the given rate", 10, result.requests);
+    }
+
+    @After
+    public void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class PollingPolicyTest {
+
+    @Test
+    public void shouldBackOffExponentiallyUpToMaximumInterval() throws MojoExecutionException {
+        final PollingPolicy policy = new PollingPolicy(100, 2, 1000, 0, 0, 0);
+
+        assertEquals("Should start with the initial interval", 100, policy.delay(1, 0, "test"));
+        assertEquals("Should multiply the interval", 200, policy.delay(2, 0, "test"));
+        assertEquals("Should multiply the interval", 800, policy.delay(4, 0, "test"));
+        assertEquals("Should not exceed the maximum interval", 1000, policy.delay(5, 0, "test"));
+        assertEquals("Should not exceed the maximum interval", 1000, policy.delay(5000, 0, "test"));
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaximumAttempts() throws MojoExecutionException {
+        final PollingPolicy policy = new PollingPolicy(100, 1, 0, 0, 3, 0);
+
+        assertEquals("Should keep the interval fixed", 100, policy.delay(2, 0, "test"));
+
+        try {
+            policy.delay(3, 250, "`test`");
+            fail("Expected MojoExecutionException");
+        } catch (final MojoExecutionException expected) {
+            assertThat("Should explain why polling stopped", expected.getMessage(),
+                    containsString("Gave up repeating `test` after reaching the maximum of 3 attempts"));
+        }
+    }
+
+    @Test
+    public void shouldMakeLastAttemptAtDeadline() throws MojoExecutionException {
+        final PollingPolicy policy = new PollingPolicy(100, 1, 0, 0, 0, 1000);
+
+        assertEquals("Should wait the interval before the deadline", 100, policy.delay(1, 500, "test"));
+        assertEquals("Should shorten the interval to reach the deadline", 50, policy.delay(2, 950, "test"));
+
+        try {
+            policy.delay(3, 1000, "test");
+            fail("Expected MojoExecutionException");
+        } catch (final MojoExecutionException expected) {
+            assertThat("Should explain why polling stopped", expected.getMessage(),
+                    containsString("deadline of 1000 ms was reached"));
+        }
+    }
+
+    @Test
+    public void shouldRandomizeIntervalWithJitter() throws MojoExecutionException {
+        final double[] random = {0};
+        final PollingPolicy policy = new PollingPolicy(1000, 1, 0, 0.2, 0, 0, () -> random[0]);
+
+        assertEquals("Should shorten by the jitter at lowest random", 800, policy.delay(1, 0, "test"));
+
+        random[0] = 0.5;
+        assertEquals("Should keep the interval at middle random", 1000, policy.delay(1, 0, "test"));
+
+        random[0] = 1;
+        assertEquals("Should lengthen by the jitter at highest random", 1200, policy.delay(1, 0, "test"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectShrinkingInterval() {
+        new PollingPolicy(100, 0.5, 0, 0, 0, 0);
+    }
+}
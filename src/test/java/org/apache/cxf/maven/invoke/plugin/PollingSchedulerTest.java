@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PollingSchedulerTest {
+
+    @Test
+    public void shouldFireSeparatelyPollsOfDifferentKeys() throws Exception {
+        final PollingScheduler scheduler = new PollingScheduler(1000);
+
+        CompletableFuture.allOf(scheduler.after("a", 10), scheduler.after("b", 10)).get(5, TimeUnit.SECONDS);
+
+        assertEquals("Should fire each key separately", 2, scheduler.wakeups());
+    }
+
+    @Test
+    public void shouldFireTogetherPollsOfSameKeyWithinWindow() throws Exception {
+        final PollingScheduler scheduler = new PollingScheduler(1000);
+
+        final CompletableFuture<?>[] polls = new CompletableFuture<?>[10];
+        for (int i = 0; i < polls.length; i++) {
+            polls[i] = scheduler.after("endpoint operation", 50 + i);
+        }
+
+        CompletableFuture.allOf(polls).get(5, TimeUnit.SECONDS);
+
+        assertEquals("Should count all polls", 10, scheduler.polls());
+        assertEquals("Should fire polls within the window together", 1, scheduler.wakeups());
+    }
+
+    @Test
+    public void shouldNotHoldTimerWhileRunningPolls() throws Exception {
+        final PollingScheduler scheduler = new PollingScheduler(0);
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CompletableFuture<String> blocking = scheduler.schedule("a", 0, () -> {
+            try {
+                blocked.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return completedFuture("blocking");
+        });
+
+        assertEquals("Should run other polls while one is blocked", "other",
+                scheduler.schedule("b", 10, () -> completedFuture("other")).get(5, TimeUnit.SECONDS));
+
+        blocked.countDown();
+        assertEquals("Should complete the blocked poll", "blocking", blocking.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldScheduleActions() throws Exception {
+        final PollingScheduler scheduler = new PollingScheduler();
+        final long start = System.nanoTime();
+
+        final CompletableFuture<String> result = scheduler.schedule("key", 200, () -> completedFuture("done"));
+
+        assertEquals("Should complete with the result of the action", "done", result.get(5, TimeUnit.SECONDS));
+        assertTrue("Should wait before running the action, less at most the coalescing window",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200
+                        - PollingScheduler.DEFAULT_COALESCING_WINDOW);
+        assertNotEquals("Should describe the polls", "", scheduler.toString());
+    }
+}
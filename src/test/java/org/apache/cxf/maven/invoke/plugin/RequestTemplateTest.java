@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.w3c.dom.Node;
+
+import org.xml.sax.SAXException;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class RequestTemplateTest {
+
+    @Test
+    public void shouldCompileVariables() throws SAXException, IOException {
+        final RequestTemplate template = new RequestTemplate(
+                XmlUtil.parse("<a b=\"#{first}\">#{second} #{first}<c>#{third}</c></a>"));
+
+        assertThat("Should find all variables", template.variables(), contains("first", "second", "third"));
+    }
+
+    @Test
+    public void shouldNotModifyTemplate() throws SAXException, IOException {
+        final Node template = XmlUtil.parse("<a>#{x}</a>");
+
+        new RequestTemplate(template).apply(Collections.singletonMap("x", "1"));
+
+        assertEquals("Template should not be modified", "#{x}", template.getTextContent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMissingValues() throws SAXException, IOException {
+        new RequestTemplate(XmlUtil.parse("<a>#{x}</a>")).apply(Collections.emptyMap());
+    }
+
+    @Test
+    public void shouldSubstituteTextAttributesAndCdata() throws SAXException, IOException {
+        final Map<String, String> row = new HashMap<>();
+        row.put("city", "Berlin & \"Tegel\" <Ö>");
+        row.put("code", "TXL");
+        row.put("data", "a]]>b");
+        row.put("empty", null);
+
+        final Payload payload = new RequestTemplate(
+                XmlUtil.parse("<w:GetWeather xmlns:w=\"urn:w\" code=\"#{code}\"><w:City>#{city} (#{code})#{empty}"
+                        + "</w:City><![CDATA[#{data}]]></w:GetWeather>")).apply(row);
+
+        assertEquals("Should substitute escaped values in text and attributes and split CDATA sections",
+                "<w:GetWeather xmlns:w=\"urn:w\" code=\"TXL\"><w:City>Berlin &amp; &quot;Tegel&quot; &lt;Ö&gt; (TXL)"
+                        + "</w:City><![CDATA[a]]]]><![CDATA[>b]]></w:GetWeather>",
+                read(payload));
+
+        assertEquals("Substituted request should be well formed", "Berlin & \"Tegel\" <Ö> (TXL)a]]>b",
+                XmlUtil.parse(read(payload)).getTextContent());
+    }
+
+    private static String read(final Payload payload) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = ((StreamSource) payload.source()).getInputStream()) {
+            final byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.xpath.XPathConstants;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseEvaluatorTest {
+
+    private static final List<String> EXPRESSIONS = Arrays.asList("//*[local-name()='status']",
+            "//*[local-name() = \"item\"]", "/*[local-name()='response']/*[local-name()='items']/*/@id",
+            "//*[local-name()='item']/*[local-name()='name']/text()", "//plain", "/*/*/plain/@kind", "//missing",
+            "//*[local-name()='status'] = 'DONE'", "//*[local-name()='name'] != 'first'",
+            "//*[local-name()='item']/@id = '2'", "//*[local-name()='items']//*[local-name()='name']",
+            "//*[local-name()='empty']/text()", "//*[local-name()='mixed']/text()", "//*[local-name()='name'] = 'x'",
+            "//*[local-name()='item']/@missing", "/response", "count(//*[local-name()='item'])",
+            "//*[local-name()='item'][@id='2']/*[local-name()='name']", "//*[@id = \"1\"]/*[local-name()='name']",
+            "//*[@id='3']", "//*[@kind='k'][local-name()='plain']/text()", "//*[@kind='k'] = 'plain text'");
+
+    private static final String RESPONSE = "<r:response xmlns:r=\"urn:test\">\n"
+            + "  <r:items>\n"
+            + "    <r:item id=\"1\"><r:name>first</r:name><r:description>one</r:description></r:item>\n"
+            + "    <r:item id=\"2\"><r:name><![CDATA[second]]></r:name></r:item>\n"
+            + "  </r:items>\n"
+            + "  <r:empty/><r:empty>text</r:empty>\n"
+            + "  <r:mixed><!-- comment --><b/>a<![CDATA[b]]>c<b/>d</r:mixed>\n"
+            + "  <plainParent><plain kind=\"k\">plain <b>text</b></plain></plainParent>\n"
+            + "  <r:status>DONE</r:status>\n"
+            + "</r:response>";
+
+    @Test
+    public void shouldEvaluateAsXPath() throws Exception {
+        final Document response = XmlUtil.parse(RESPONSE).getOwnerDocument();
+
+        final ResponseEvaluator.Result result = new ResponseEvaluator(EXPRESSIONS, new XPathCache())
+                .evaluate(response);
+
+        for (final String expression : EXPRESSIONS) {
+            assertEquals("String value of `" + expression + "` should be as evaluated by XPath",
+                    XmlUtil.xpathExpression(expression).evaluate(response, XPathConstants.STRING),
+                    result.string(expression));
+            assertEquals("Boolean value of `" + expression + "` should be as evaluated by XPath",
+                    XmlUtil.xpathExpression(expression).evaluate(response, XPathConstants.BOOLEAN),
+                    result.bool(expression));
+        }
+    }
+
+    @Test
+    public void shouldEvaluateEachExpressionOnItsOwn() throws Exception {
+        final Document response = XmlUtil.parse(RESPONSE).getOwnerDocument();
+
+        for (final String expression : EXPRESSIONS) {
+            final ResponseEvaluator.Result result = new ResponseEvaluator(Collections.singleton(expression),
+                    new XPathCache()).evaluate(response);
+
+            assertEquals("String value of `" + expression + "` should be as evaluated by XPath",
+                    XmlUtil.xpathExpression(expression).evaluate(response, XPathConstants.STRING),
+                    result.string(expression));
+        }
+    }
+
+    @Test
+    public void shouldEvaluateOnAnyNodeOfTheResponse() throws Exception {
+        final Element status = (Element) XmlUtil.parse(RESPONSE).getOwnerDocument()
+                .getElementsByTagNameNS("urn:test", "status").item(0);
+
+        final ResponseEvaluator.Result result = new ResponseEvaluator(
+                Collections.singleton("/*[local-name()='response']/@id = ''"), new XPathCache()).evaluate(status);
+
+        assertFalse("Absolute paths should be evaluated from the root of the document",
+                result.bool("/*[local-name()='response']/@id = ''"));
+    }
+
+    @Test
+    public void shouldReuseTheMatcherForManyResponses() throws Exception {
+        final ResponseEvaluator evaluator = new ResponseEvaluator(
+                Arrays.asList("//*[local-name()='status']", "//*[local-name()='status'] = 'DONE'"), new XPathCache());
+
+        final ResponseEvaluator.Result pending = evaluator
+                .evaluate(XmlUtil.parse("<response><status>PENDING</status></response>"));
+        final ResponseEvaluator.Result done = evaluator
+                .evaluate(XmlUtil.parse("<response><other/><status>DONE</status></response>"));
+
+        assertEquals("Should evaluate the first response", "PENDING", pending.string("//*[local-name()='status']"));
+        assertFalse("Should evaluate the comparison on the first response",
+                pending.bool("//*[local-name()='status'] = 'DONE'"));
+        assertEquals("Should evaluate the second response", "DONE", done.string("//*[local-name()='status']"));
+        assertTrue("Should evaluate the comparison on the second response",
+                done.bool("//*[local-name()='status'] = 'DONE'"));
+    }
+}
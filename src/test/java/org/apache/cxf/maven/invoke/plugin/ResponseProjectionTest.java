@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.w3c.dom.Document;
+
+import org.xml.sax.SAXException;
+
+import org.apache.cxf.staxutils.StaxUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseProjectionTest {
+
+    private static final List<String> EXPRESSIONS = Arrays.asList("//*[local-name()='status']",
+            "//*[local-name() = \"item\"]", "/*[local-name()='response']/*[local-name()='items']/*/@id",
+            "//*[local-name()='item']/*[local-name()='name']/text()", "//plain", "/*/*/plain/@kind", "//missing",
+            "//*[local-name()='status'] = 'DONE'", "//*[local-name()='name'] != 'first'",
+            "//*[local-name()='item']/@id = '2'", "//*[local-name()='items']//*[local-name()='name']",
+            "//*[local-name()='empty']/text()", "//*[local-name()='item'][@id='2']/*[local-name()='name']");
+
+    private static final String RESPONSE = "<r:response xmlns:r=\"urn:test\">\n"
+            + "  <r:items>\n"
+            + "    <r:item id=\"1\"><r:name>first</r:name><r:description>one</r:description></r:item>\n"
+            + "    <r:item id=\"2\"><r:name><![CDATA[second]]></r:name></r:item>\n"
+            + "  </r:items>\n"
+            + "  <r:empty/><r:empty>text</r:empty>\n"
+            + "  <plainParent><plain kind=\"k\">plain <b>text</b></plain></plainParent>\n"
+            + "  <r:status>DONE</r:status>\n"
+            + "</r:response>";
+
+    private static Object evaluate(final String expression, final Document document, final boolean comparison)
+            throws XPathExpressionException {
+        return XmlUtil.xpathExpression(expression).evaluate(document,
+                comparison ? XPathConstants.BOOLEAN : XPathConstants.STRING);
+    }
+
+    private static Document project(final List<String> expressions, final String xml) throws XMLStreamException {
+        final XMLStreamReader reader = StaxUtils.createXMLStreamReader(new StringReader(xml));
+
+        return new ResponseProjection(expressions).project(reader);
+    }
+
+    @Test
+    public void shouldEvaluateAsOnWholeResponse() throws Exception {
+        final Document whole = XmlUtil.parse(RESPONSE).getOwnerDocument();
+
+        final Document combined = project(EXPRESSIONS, RESPONSE);
+
+        for (final String expression : EXPRESSIONS) {
+            final boolean comparison = expression.contains("'DONE'") || expression.contains("!=")
+                    || expression.contains("= '2'");
+
+            final Object expected = evaluate(expression, whole, comparison);
+
+            assertEquals("Should evaluate `" + expression + "` on projection for all expressions as on whole response",
+                    expected, evaluate(expression, combined, comparison));
+
+            assertEquals("Should evaluate `" + expression + "` on its own projection as on whole response", expected,
+                    evaluate(expression, project(Collections.singletonList(expression), RESPONSE), comparison));
+        }
+    }
+
+    @Test
+    public void shouldKeepOnlySelectedElements() throws XMLStreamException, XPathExpressionException {
+        final Document projection = project(Collections.singletonList("//*[local-name()='status']"), RESPONSE);
+
+        assertEquals("Should keep the selected element", "DONE",
+                evaluate("//*[local-name()='status']", projection, false));
+        assertEquals("Should keep the ancestors of the selected element", "response",
+                projection.getDocumentElement().getLocalName());
+        assertFalse("Should not keep other elements",
+                (boolean) evaluate("//*[local-name()='item']", projection, true));
+    }
+
+    @Test
+    public void shouldReportUnsupportedExpressions() {
+        final List<String> unsupported = Arrays.asList("count(//a)", "//a[1]", "//p:a", "//@id", "//a//text()",
+                "//a = 1", "/", "//a | //b", "../a", "//a = 'x' and //b");
+
+        for (final String expression : unsupported) {
+            assertNull("Should not compile `" + expression + "`", ResponseProjection.compile(expression));
+        }
+
+        for (final String expression : EXPRESSIONS) {
+            assertNotNull("Should compile `" + expression + "`", ResponseProjection.compile(expression));
+        }
+
+        assertEquals("Should report unsupported expressions", Arrays.asList("count(//a)"),
+                new ResponseProjection(Arrays.asList("//a", "count(//a)")).unsupported());
+    }
+
+    @Test
+    public void shouldStopReadingOnceAllSelectedNodesAreRead()
+            throws XMLStreamException, SAXException, IOException {
+        final XMLStreamReader reader = StaxUtils
+                .createXMLStreamReader(new StringReader("<a><b>1</b><c>2</c><b>3</b></a>"));
+
+        new ResponseProjection(Collections.singletonList("/a/b")).project(reader);
+
+        assertTrue("Should not read past the first selected element", reader.hasNext());
+        assertEquals("Should stop at the end of the first selected element", "b", reader.getLocalName());
+    }
+}
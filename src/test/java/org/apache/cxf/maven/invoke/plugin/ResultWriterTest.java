@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResultWriterTest {
+
+    @Test
+    public void shouldQuoteValuesWhenNeeded() {
+        assertEquals("Plain values should not be quoted", "value", ResultWriter.quote("value"));
+        assertEquals("Values with commas should be quoted", "\"a,b\"", ResultWriter.quote("a,b"));
+        assertEquals("Quotes should be doubled", "\"say \"\"hi\"\"\"", ResultWriter.quote("say \"hi\""));
+        assertEquals("Null should be empty", "", ResultWriter.quote(null));
+    }
+
+    @Test
+    public void shouldWriteRecords() throws IOException {
+        final StringWriter output = new StringWriter();
+
+        try (ResultWriter writer = new ResultWriter(output, Arrays.asList("a", "b"))) {
+            writer.success(2, 15, Collections.singletonMap("a", "x"));
+            writer.failure(1, 20, new IllegalStateException("failed, badly"));
+
+            assertEquals("Should count failures", 1, writer.failures());
+            assertEquals("Should count records", 2, writer.written());
+        }
+
+        assertEquals("Should write header and records",
+                "row,latency,outcome,a,b\n2,15,OK,x,\n1,20,\"failed, badly\",,\n", output.toString());
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.net.URI;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.Service;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.easymock.EasyMockRule;
+import org.easymock.Mock;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ServiceCacheTest {
+
+    private static final ServiceCache.Key KEY = new ServiceCache.Key(URI.create("file:uri:wsdl"),
+            new QName("test:namespace", "test-service"), false);
+
+    @Rule
+    public EasyMockRule easyMock = new EasyMockRule(this);
+
+    @Mock
+    private MavenExecutionRequest request1;
+
+    @Mock
+    private MavenExecutionRequest request2;
+
+    @Mock
+    private Service service1;
+
+    @Mock
+    private Service service2;
+
+    @Mock
+    private MavenSession session1;
+
+    @Mock
+    private MavenSession session2;
+
+    @Test
+    public void shouldClearCacheOnNewSession() throws MojoExecutionException {
+        expect(session1.getRequest()).andReturn(request1).anyTimes();
+        expect(session2.getRequest()).andReturn(request2).anyTimes();
+        replay(session1, session2);
+
+        final ServiceCache cache = new ServiceCache();
+
+        cache.session(session1);
+        final Service first = cache.get(KEY, () -> service1);
+
+        cache.session(session1);
+        assertSame("Same session should keep cached services", first, cache.get(KEY, () -> service2));
+
+        cache.session(session2);
+        assertNotSame("New session should not see services from previous session", first,
+                cache.get(KEY, () -> service2));
+        assertEquals("Statistics should be reset for the new session", 1, cache.misses());
+    }
+
+    @Test
+    public void shouldCreateServiceOnlyOnce() throws MojoExecutionException {
+        final ServiceCache cache = new ServiceCache();
+
+        final Service first = cache.get(KEY, () -> service1);
+        final Service second = cache.get(new ServiceCache.Key(URI.create("file:uri:wsdl"),
+                new QName("test:namespace", "test-service"), false), () -> service2);
+
+        assertSame("Should create the service on first access", service1, first);
+        assertSame("Should reuse the service for the equal key", service1, second);
+        assertEquals("Should count one miss", 1, cache.misses());
+        assertEquals("Should count one hit", 1, cache.hits());
+    }
+
+    @Test
+    public void shouldDistinguishServicesByLogging() throws MojoExecutionException {
+        final ServiceCache cache = new ServiceCache();
+
+        cache.get(KEY, () -> service1);
+        final Service withLogging = cache.get(new ServiceCache.Key(URI.create("file:uri:wsdl"),
+                new QName("test:namespace", "test-service"), true), () -> service2);
+
+        assertSame("Should create new service with logging", service2, withLogging);
+        assertEquals("Should count two misses", 2, cache.misses());
+    }
+
+    @Test
+    public void shouldPropagateCreationFailures() {
+        final ServiceCache cache = new ServiceCache();
+
+        final MojoExecutionException failure = new MojoExecutionException("expected");
+        try {
+            cache.get(KEY, () -> {
+                throw failure;
+            });
+            fail("Should propagate the exception from the factory");
+        } catch (final MojoExecutionException e) {
+            assertSame("Should propagate the exact exception", failure, e);
+        }
+    }
+}
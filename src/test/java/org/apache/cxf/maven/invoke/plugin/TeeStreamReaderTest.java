@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.dom.DOMSource;
+
+import org.w3c.dom.Document;
+
+import org.xml.sax.SAXException;
+
+import org.apache.cxf.staxutils.StaxUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TeeStreamReaderTest {
+
+    private static final String XML = "<a:root xmlns:a=\"urn:a\" xmlns=\"urn:default\" a:attr=\"1\""
+            + " plain=\"&lt;2&gt;\">"
+            + "<child>text &amp; more</child><!--comment--><a:data><![CDATA[<raw>]]></a:data><?pi data?></a:root>";
+
+    /** Processing instructions are not supported when reading DOM, and are not allowed in SOAP messages anyway */
+    private static final String XML_WITHOUT_PI = XML.replace("<?pi data?>", "");
+
+    private static String copy(final String xml, final boolean consume) throws XMLStreamException {
+        final StringWriter copy = new StringWriter();
+        final XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(copy);
+
+        final TeeStreamReader tee = new TeeStreamReader(StaxUtils.createXMLStreamReader(new StringReader(xml)),
+                writer);
+        if (consume) {
+            StaxUtils.read(tee);
+        } else {
+            tee.nextTag();
+        }
+        tee.drain();
+
+        return copy.toString();
+    }
+
+    private static String normalized(final String xml) throws SAXException, IOException {
+        return XmlUtil.toString(XmlUtil.parse(xml));
+    }
+
+    @Test
+    public void shouldCopyEverythingReadAndDrained() throws XMLStreamException, SAXException, IOException {
+        assertEquals("Should copy the XML read partially and drained", normalized(XML), normalized(copy(XML, false)));
+    }
+
+    @Test
+    public void shouldCopyWhileBuildingDocument() throws XMLStreamException, SAXException, IOException {
+        final StringWriter copy = new StringWriter();
+
+        final TeeStreamReader tee = new TeeStreamReader(
+                StaxUtils.createXMLStreamReader(new DOMSource(XmlUtil.parse(XML_WITHOUT_PI).getOwnerDocument())),
+                StaxUtils.createXMLStreamWriter(copy));
+        final Document document = StaxUtils.read(tee);
+        tee.drain();
+
+        assertEquals("Should build the document", normalized(XML_WITHOUT_PI),
+                XmlUtil.toString(document.getDocumentElement()));
+        assertEquals("Should copy the XML of the document", normalized(XML_WITHOUT_PI), normalized(copy.toString()));
+        assertEquals("Should have read the whole document", XMLStreamConstants.END_DOCUMENT, tee.getEventType());
+    }
+
+    @Test
+    public void shouldCopyXmlFullyRead() throws XMLStreamException, SAXException, IOException {
+        assertEquals("Should copy the XML fully read", normalized(XML), normalized(copy(XML, true)));
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Service;
+import javax.xml.ws.soap.SOAPBinding;
+
+import org.apache.cxf.jaxws.DispatchImpl;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class TransportTest {
+
+    private static final QName PORT = new QName("test:namespace", "port");
+
+    private static Dispatch<Source> dispatch() {
+        final Service service = Service.create(new QName("test:namespace", "service"));
+        service.addPort(PORT, SOAPBinding.SOAP11HTTP_BINDING, "http://localhost:1/service");
+
+        return service.createDispatch(PORT, Source.class, Service.Mode.PAYLOAD);
+    }
+
+    private static HTTPClientPolicy policy(final Dispatch<Source> dispatch) {
+        return ((HTTPConduit) ((DispatchImpl<?>) dispatch).getClient().getConduit()).getClient();
+    }
+
+    @Test
+    public void shouldConfigureConduit() {
+        final Transport transport = new Transport();
+        transport.allowChunking = false;
+        transport.chunkingThreshold = 1024;
+        transport.connectionTimeout = 1000L;
+        transport.keepAlive = true;
+        transport.receiveTimeout = 2000L;
+        transport.useAsyncTransport = true;
+
+        final Dispatch<Source> dispatch = dispatch();
+        transport.apply(dispatch);
+
+        final HTTPClientPolicy policy = policy(dispatch);
+        assertFalse("Should disable chunking", policy.isAllowChunking());
+        assertEquals("Should set chunking threshold", 1024, policy.getChunkingThreshold());
+        assertEquals("Should set connection timeout", 1000, policy.getConnectionTimeout());
+        assertEquals("Should keep connections alive", ConnectionType.KEEP_ALIVE, policy.getConnection());
+        assertEquals("Should set receive timeout", 2000, policy.getReceiveTimeout());
+        assertEquals("Should use asynchronous transport", Boolean.TRUE,
+                dispatch.getRequestContext().get(AsyncInvoker.USE_ASYNC_HTTP_CONDUIT));
+    }
+
+    @Test
+    public void shouldKeepDefaultsOfOptionsNotGiven() {
+        final Transport transport = new Transport();
+        transport.receiveTimeout = 2000L;
+
+        final Dispatch<Source> dispatch = dispatch();
+        transport.apply(dispatch);
+
+        final HTTPClientPolicy defaults = new HTTPClientPolicy();
+        final HTTPClientPolicy policy = policy(dispatch);
+        assertEquals("Should keep default chunking", defaults.isAllowChunking(), policy.isAllowChunking());
+        assertEquals("Should keep default connection timeout", defaults.getConnectionTimeout(),
+                policy.getConnectionTimeout());
+        assertNull("Should not choose the transport",
+                dispatch.getRequestContext().get(AsyncInvoker.USE_ASYNC_HTTP_CONDUIT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonCxfDispatch() {
+        @SuppressWarnings("unchecked")
+        final Dispatch<Source> dispatch = createMock(Dispatch.class);
+
+        new Transport().apply(dispatch);
+    }
+}
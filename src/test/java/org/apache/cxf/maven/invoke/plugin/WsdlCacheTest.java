@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.Service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.catalog.OASISCatalogManager;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class WsdlCacheTest {
+
+    private static final String SCHEMA = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\""//
+            + " targetNamespace=\"urn:test\" elementFormDefault=\"qualified\">"//
+            + "<xs:element name=\"echo\" type=\"xs:string\"/>"//
+            + "</xs:schema>";
+
+    private static final String WSDL = "<wsdl:definitions xmlns:wsdl=\"http://schemas.xmlsoap.org/wsdl/\""//
+            + " xmlns:soap=\"http://schemas.xmlsoap.org/wsdl/soap/\" xmlns:xs=\"http://www.w3.org/2001/XMLSchema\""//
+            + " xmlns:tns=\"urn:test\" targetNamespace=\"urn:test\">"//
+            + "<wsdl:types><xs:schema><xs:import namespace=\"urn:test\" schemaLocation=\"types.xsd\"/></xs:schema>"//
+            + "</wsdl:types>"//
+            + "<wsdl:message name=\"echo\"><wsdl:part name=\"echo\" element=\"tns:echo\"/></wsdl:message>"//
+            + "<wsdl:portType name=\"Echo\"><wsdl:operation name=\"echo\"><wsdl:input message=\"tns:echo\"/>"//
+            + "<wsdl:output message=\"tns:echo\"/></wsdl:operation></wsdl:portType>"//
+            + "<wsdl:binding name=\"EchoBinding\" type=\"tns:Echo\">"//
+            + "<soap:binding style=\"document\" transport=\"http://schemas.xmlsoap.org/soap/http\"/>"//
+            + "<wsdl:operation name=\"echo\"><soap:operation soapAction=\"\"/>"//
+            + "<wsdl:input><soap:body use=\"literal\"/></wsdl:input>"//
+            + "<wsdl:output><soap:body use=\"literal\"/></wsdl:output></wsdl:operation></wsdl:binding>"//
+            + "<wsdl:service name=\"EchoService\"><wsdl:port name=\"EchoPort\" binding=\"tns:EchoBinding\">"//
+            + "<soap:address location=\"http://localhost/echo\"/></wsdl:port></wsdl:service>"//
+            + "</wsdl:definitions>";
+
+    @Rule
+    public TemporaryFolder workdir = new TemporaryFolder();
+
+    private final Map<String, String> conditionalHeaders = new HashMap<>();
+
+    private final Map<String, String> documents = new HashMap<>();
+
+    private final List<String> requested = new ArrayList<>();
+
+    private HttpServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        documents.put("/service.wsdl", WSDL);
+        documents.put("/types.xsd", SCHEMA);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::serve);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldCacheWsdlAndImportedSchemas() throws MojoExecutionException, IOException {
+        final File directory = workdir.newFolder();
+
+        final URL catalog = new WsdlCache(directory, false, new SystemStreamLog()).cache(uri("/service.wsdl"));
+
+        assertNotNull("Should write catalog", catalog);
+        assertThat("Should download WSDL and imported schema", requested, contains("/service.wsdl", "/types.xsd"));
+
+        final String catalogContent = new String(Files.readAllBytes(new File(catalog.getPath()).toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue("Catalog should map the imported schema",
+                catalogContent.contains("systemId=\"" + uri("/types.xsd") + "\""));
+    }
+
+    @Test
+    public void shouldFindImports() throws IOException {
+        final File wsdl = workdir.newFile();
+        Files.write(wsdl.toPath(), WSDL.getBytes(StandardCharsets.UTF_8));
+
+        final List<URI> imports = WsdlCache.imports(URI.create("http://example.com/ws/service?wsdl"), wsdl);
+
+        assertThat("Should resolve relative schema location", imports,
+                contains(URI.create("http://example.com/ws/types.xsd")));
+    }
+
+    @Test
+    public void shouldNotCacheLocalWsdl() throws MojoExecutionException, IOException {
+        final URL catalog = new WsdlCache(workdir.newFolder(), false, new SystemStreamLog())
+                .cache(URI.create("file:/some/service.wsdl"));
+
+        assertNull("Local WSDL files should not be cached", catalog);
+    }
+
+    @Test
+    public void shouldResolveServiceFromCacheWhenOffline() throws MojoExecutionException, IOException {
+        final File directory = workdir.newFolder();
+        final URI wsdl = uri("/service.wsdl");
+
+        new WsdlCache(directory, false, new SystemStreamLog()).cache(wsdl);
+
+        server.stop(0);
+
+        final URL catalog = new WsdlCache(directory, true, new SystemStreamLog()).cache(wsdl);
+
+        final Bus bus = BusFactory.newInstance().createBus();
+        final Bus previous = BusFactory.getAndSetThreadDefaultBus(bus);
+        try {
+            OASISCatalogManager.getCatalogManager(bus).loadCatalog(catalog);
+
+            final Service service = Service.create(wsdl.toURL(), new QName("urn:test", "EchoService"));
+
+            assertThat("Service should be created from cached WSDL", iterable(service),
+                    hasItem(new QName("urn:test", "EchoPort")));
+        } finally {
+            BusFactory.setThreadDefaultBus(previous);
+            bus.shutdown(true);
+        }
+    }
+
+    @Test
+    public void shouldRevalidateCachedDocuments() throws MojoExecutionException, IOException {
+        final File directory = workdir.newFolder();
+
+        final WsdlCache cache = new WsdlCache(directory, false, new SystemStreamLog());
+        cache.cache(uri("/service.wsdl"));
+
+        requested.clear();
+        cache.cache(uri("/service.wsdl"));
+
+        assertThat("Should revalidate both documents", requested, contains("/service.wsdl", "/types.xsd"));
+        assertEquals("Should send entity tag of the cached document", "\"" + WSDL.hashCode() + "\"",
+                conditionalHeaders.get("/service.wsdl"));
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void shouldFailWhenOfflineAndNotCached() throws MojoExecutionException, IOException {
+        new WsdlCache(workdir.newFolder(), true, new SystemStreamLog()).cache(uri("/service.wsdl"));
+    }
+
+    @Test
+    public void shouldUseCachedDocumentWhenOffline() throws MojoExecutionException, IOException {
+        final File directory = workdir.newFolder();
+
+        new WsdlCache(directory, false, new SystemStreamLog()).cache(uri("/service.wsdl"));
+
+        requested.clear();
+        new WsdlCache(directory, true, new SystemStreamLog()).cache(uri("/service.wsdl"));
+
+        assertTrue("Should not contact the server when offline", requested.isEmpty());
+    }
+
+    private static Iterable<QName> iterable(final Service service) {
+        return service::getPorts;
+    }
+
+    private void serve(final HttpExchange exchange) throws IOException {
+        final String path = exchange.getRequestURI().getPath();
+        requested.add(path);
+
+        final String document = documents.get(path);
+        final String etag = "\"" + document.hashCode() + "\"";
+
+        final String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            conditionalHeaders.put(path, ifNoneMatch);
+        }
+
+        exchange.getResponseHeaders().add("ETag", etag);
+        if (etag.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        final byte[] body = document.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private URI uri(final String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.maven.invoke.plugin;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.w3c.dom.Node;
+
+import org.xml.sax.SAXException;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class XPathCacheTest {
+
+    @Test
+    public void shouldCompileExpressionOnlyOnce() throws XPathExpressionException {
+        final XPathCache cache = new XPathCache();
+
+        final XPathExpression first = cache.get("//a");
+        final XPathExpression second = cache.get("//a");
+
+        assertSame("Should reuse the compiled expression", first, second);
+        assertEquals("Should count one miss", 1, cache.misses());
+        assertEquals("Should count one hit", 1, cache.hits());
+    }
+
+    @Test
+    public void shouldCompileExpressionsForEachThread() throws Exception {
+        final XPathCache cache = new XPathCache();
+
+        final XPathExpression main = cache.get("//a");
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final XPathExpression other = executor.submit(() -> cache.get("//a")).get();
+
+            assertNotSame("Threads should not share compiled expressions", main, other);
+            assertSame("Other thread should reuse its compiled expression", other,
+                    executor.submit(() -> cache.get("//a")).get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Should count a miss for each thread", 2, cache.misses());
+        assertEquals("Should count the hit of the other thread", 1, cache.hits());
+    }
+
+    @Test
+    public void shouldEvaluateCachedExpressions() throws XPathExpressionException, SAXException, IOException {
+        final XPathCache cache = new XPathCache();
+        final Node document = XmlUtil.parse("<a><b>value</b></a>");
+
+        assertEquals("Should evaluate the expression", "value",
+                cache.evaluate("/a/b", document, XPathConstants.STRING));
+        assertEquals("Should evaluate the cached expression", "value",
+                cache.evaluate("/a/b", document, XPathConstants.STRING));
+        assertEquals("Should count one hit", 1, cache.hits());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedExpressions() throws XPathExpressionException {
+        final XPathCache cache = new XPathCache(2);
+
+        final XPathExpression a = cache.get("//a");
+        final XPathExpression b = cache.get("//b");
+        cache.get("//a");
+        cache.get("//c");
+
+        assertEquals("Cache should be bounded", 2, cache.size());
+        assertEquals("Should count one eviction", 1, cache.evictions());
+        assertSame("Recently used expression should be kept", a, cache.get("//a"));
+        assertNotSame("Least recently used expression should be evicted", b, cache.get("//b"));
+        assertEquals("Evicted expression should be compiled again", 4, cache.misses());
+    }
+
+    @Test
+    public void shouldPropagateCompilationFailures() {
+        final XPathCache cache = new XPathCache();
+
+        try {
+            cache.get("//[");
+            fail("Expected XPathExpressionException");
+        } catch (final XPathExpressionException expected) {
+            assertEquals("Invalid expressions should not be cached", 0, cache.size());
+        }
+    }
+
+    @Test
+    public void shouldSummarizeStatistics() throws XPathExpressionException {
+        final XPathCache cache = new XPathCache();
+
+        cache.get("//a");
+        cache.get("//a");
+
+        assertThat("Should report size, hits, misses, evictions and hit rate", cache.toString(),
+                startsWith("XPath cache: 1 expression(s) in this thread, 1 hit(s), 1 miss(es), 0 eviction(s), "
+                        + "hit rate 50.0%"));
+    }
+}
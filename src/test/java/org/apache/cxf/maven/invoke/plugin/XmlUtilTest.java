@@ -18,8 +18,19 @@
  */
 package org.apache.cxf.maven.invoke.plugin;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 
@@ -28,12 +39,77 @@ import org.w3c.dom.Node;
 
 import org.xml.sax.SAXException;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 public class XmlUtilTest {
 
+    private static final int ITERATIONS = 200;
+
+    private static final int THREADS = 16;
+
+    @Rule
+    public TemporaryFolder workdir = new TemporaryFolder();
+
+    @Test
+    public void shouldBeUsableFromManyThreadsConcurrently() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            final List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                final Callable<Integer> task = () -> {
+                    start.await();
+
+                    int verified = 0;
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        final String value = thread + "-" + i;
+
+                        final Node parsed = XmlUtil.parse("<a xmlns='urn:test'><b id='" + value + "'>" + value
+                                + "</b><c>" + i + "</c></a>");
+
+                        final XPathExpression expression = XmlUtil
+                                .xpathExpression("concat(//*[local-name() = 'b']/@id, '/', //*[local-name() = 'b'])");
+                        assertEquals("XPath should be evaluated on the document parsed by the same thread",
+                                value + "/" + value, expression.evaluate(parsed));
+
+                        final Number sum = (Number) XmlUtil.xpathExpression("sum(//*[local-name() = 'c'])")
+                                .evaluate(parsed, XPathConstants.NUMBER);
+                        assertEquals("XPath should evaluate numbers", i, sum.intValue());
+
+                        final Document document = XmlUtil.document();
+                        document.appendChild(document.importNode(parsed, true));
+                        final String serialized = XmlUtil.toString(document);
+                        assertEquals("Document should be serialized",
+                                XmlUtil.toString(parsed.getOwnerDocument()), serialized);
+
+                        verified++;
+                    }
+
+                    return verified;
+                };
+                results.add(executor.submit(task));
+            }
+
+            start.countDown();
+
+            for (final Future<Integer> result : results) {
+                assertEquals("All iterations should complete without errors", ITERATIONS, result.get().intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void shouldCompileXPathExpressions() throws XPathExpressionException {
         final XPathExpression expression = XmlUtil.xpathExpression("//*");
@@ -54,4 +130,21 @@ public class XmlUtilTest {
 
         assertNotNull("XML should be parsed", node);
     }
+
+    @Test
+    public void shouldRejectExternalEntities() throws IOException {
+        final File secret = workdir.newFile();
+        Files.write(secret.toPath(), "secret".getBytes(StandardCharsets.UTF_8));
+        final File wsdl = workdir.newFile();
+        Files.write(wsdl.toPath(), ("<!DOCTYPE definitions [<!ENTITY secret SYSTEM \"" + secret.toURI()
+                + "\">]><definitions>&secret;</definitions>").getBytes(StandardCharsets.UTF_8));
+
+        try {
+            XmlUtil.parse(wsdl);
+            fail("Expected SAXException");
+        } catch (final SAXException expected) {
+            assertThat("Should reject the document type declaration", expected.getMessage(),
+                    containsString("DOCTYPE"));
+        }
+    }
 }